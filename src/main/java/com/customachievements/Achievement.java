@@ -73,7 +73,7 @@ public class Achievement extends AchievementElement
 	}
 
 	@Override
-	public AchievementElement deepCopy()
+	protected AchievementElement copyNode()
 	{
 		return new Achievement(this);
 	}
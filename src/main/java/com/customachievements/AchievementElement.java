@@ -25,11 +25,13 @@
  */
 package com.customachievements;
 
+import com.google.common.collect.ImmutableList;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static com.customachievements.AchievementState.*;
@@ -38,82 +40,462 @@ import static com.customachievements.AchievementState.*;
 @Setter
 public abstract class AchievementElement
 {
-	private AchievementState state;
-	private boolean forceComplete;
-	private boolean uiExpanded;
+	private static final AchievementState[] STATES = AchievementState.values();
+
+	// Bit layout of flags, subclasses may use the bits from SUBCLASS_SHIFT onwards
+	private static final int STATE_SHIFT = 0;
+	private static final int STATE_WIDTH = 2;
+	private static final int FORCE_COMPLETE_SHIFT = 2;
+	protected static final int SUBCLASS_SHIFT = 3;
+	// Resets so far, wrapping, kept in the top bits. Undo compares them to tell a reset from progress made since
+	private static final int RESETS_SHIFT = 24;
+	private static final int RESETS_WIDTH = 8;
+
+	// Weight of a single requirement in the progress aggregates, fixed point so that incremental updates never drift
+	public static final int WEIGHT = 1000;
+
+	@Setter(AccessLevel.PACKAGE)
+	private long id;
+
+	// State and force completion, plus whatever subclasses pack in. Serialized under the original field names
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private transient int flags;
+
+	// Empty lists are shared, see compact()
 	private List<String> keywords;
 
+	// Expansion is view state now, this is only read to migrate configs saved before it moved
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private Boolean uiExpanded;
+
+	// Modified through addChild() and friends only
 	@Setter(AccessLevel.NONE)
-	private final List<AchievementElement> children;
+	private List<AchievementElement> children;
 
 	@Getter(AccessLevel.NONE)
 	private transient AchievementStateListener stateListener;
 
+	// Serialized children of a collapsed, completed root achievement, in place of the children list until materialized
+	@Getter(AccessLevel.PACKAGE)
+	@Setter(AccessLevel.PACKAGE)
+	private transient DormantSubtree dormant;
+
+	@Getter(AccessLevel.PACKAGE)
+	@Setter(AccessLevel.PACKAGE)
+	private transient AchievementElement parent;
+
+	// Shared with the snapshots of every ancestor until this element or one of its descendants changes
+	@Getter(AccessLevel.PACKAGE)
+	@Setter(AccessLevel.PACKAGE)
+	private transient ElementSnapshot snapshot;
+
+	// Children per state, kept current as children change state so that getChildrenState() is O(1)
+	@Getter(AccessLevel.PROTECTED)
+	@Setter(AccessLevel.NONE)
+	private transient int completeChildren;
+
+	// Children that are in progress or complete
+	@Getter(AccessLevel.PROTECTED)
+	@Setter(AccessLevel.NONE)
+	private transient int startedChildren;
+
+	// Progress of this subtree in WEIGHT units, own contribution included, kept current as leaves change
+	@Setter(AccessLevel.NONE)
+	private transient int completedWeight;
+
+	@Setter(AccessLevel.NONE)
+	private transient int totalWeight;
+
+	// This element's own share of completedWeight, to compute deltas from
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private transient int ownCompletedWeight;
+
 	public AchievementElement()
 	{
-		this.state = AchievementState.INCOMPLETE;
-		this.forceComplete = false;
-		this.uiExpanded = true;
-		this.keywords = new ArrayList<>();
-		this.children = new ArrayList<>();
+		this.flags = 0;
+		this.uiExpanded = null;
+		this.keywords = ImmutableList.of();
+		this.children = Collections.emptyList();
 		this.stateListener = null;
+		this.totalWeight = getOwnWeight();
+		setBits(STATE_SHIFT, STATE_WIDTH, INCOMPLETE.ordinal());
 	}
 
+	/**
+	 * Copies the element itself, without children. Keywords are shared as they are only ever replaced.
+	 */
 	public AchievementElement(AchievementElement other)
 	{
-		this.state = other.state;
-		this.forceComplete = other.forceComplete;
-		this.uiExpanded = other.uiExpanded;
-		this.keywords = new ArrayList<>(other.keywords);
-		this.children = new ArrayList<>();
+		this.id = other.id;
+		this.flags = other.flags;
+		this.uiExpanded = null;
+		this.keywords = other.keywords;
+		this.children = Collections.emptyList();
 		this.stateListener = null;
-
-		for (AchievementElement entry : other.children)
-		{
-			this.children.add(entry.deepCopy());
-		}
+		this.dormant = other.dormant;
+		this.ownCompletedWeight = other.ownCompletedWeight;
+		this.completedWeight = other.ownCompletedWeight;
+		this.totalWeight = getOwnWeight();
 	}
 
 	public abstract void refresh();
-	public abstract AchievementElement deepCopy();
+	protected abstract AchievementElement copyNode();
 	public abstract String completionChatMessage(CustomAchievementsConfig config);
 	public abstract String toString();
 
-	public void reset()
+	public AchievementElement deepCopy()
 	{
-		setState(INCOMPLETE);
-		setForceComplete(false);
+		final AchievementElement copy = copyNode();
+
+		for (AchievementElement child : children)
+		{
+			copy.addChild(child.deepCopy());
+		}
+
+		return copy;
 	}
 
-	public void click()
+	/**
+	 * Copies this element and its children for the editor, which only ever modifies those. Grandchildren are
+	 * shared with this element rather than copied.
+	 */
+	public AchievementElement editableCopy()
 	{
-		setForceComplete(!isForceComplete());
+		final AchievementElement copy = copyNode();
+
+		for (AchievementElement child : children)
+		{
+			final AchievementElement childCopy = child.copyNode();
+
+			if (!child.children.isEmpty())
+			{
+				childCopy.children = new ArrayList<>(child.children);
+				childCopy.recount();
+			}
+
+			copy.addChild(childCopy);
+		}
+
+		return copy;
 	}
 
-	public AchievementState getChildrenState()
+	public void addChild(AchievementElement child)
 	{
-		boolean complete = true;
-		boolean inProgress = false;
+		if (children.isEmpty())
+		{
+			children = new ArrayList<>(2);
+		}
+
+		children.add(child);
+		countChild(child.getState(), 1);
+		addWeight(child.getContributedWeight(), child.totalWeight);
+	}
 
+	public boolean removeChild(AchievementElement child)
+	{
+		final boolean removed = children.remove(child);
+
+		if (removed)
+		{
+			countChild(child.getState(), -1);
+			addWeight(-child.getContributedWeight(), -child.totalWeight);
+		}
+
+		if (children.isEmpty())
+		{
+			children = Collections.emptyList();
+		}
+
+		return removed;
+	}
+
+	public AchievementElement setChild(int index, AchievementElement child)
+	{
+		final AchievementElement old = children.set(index, child);
+		countChild(old.getState(), -1);
+		countChild(child.getState(), 1);
+		addWeight(child.getContributedWeight() - old.getContributedWeight(), child.totalWeight - old.totalWeight);
+		return old;
+	}
+
+	public void moveChild(int from, int to)
+	{
+		children.add(to, children.remove(from));
+	}
+
+	/**
+	 * Replaces empty lists with shared instances and trims the rest, e.g. after deserialization.
+	 */
+	void compact()
+	{
+		keywords = keywords == null || keywords.isEmpty() ? ImmutableList.of() : ImmutableList.copyOf(keywords);
+
+		if (children == null || children.isEmpty())
+		{
+			children = Collections.emptyList();
+		}
+		else if (children instanceof ArrayList)
+		{
+			((ArrayList<AchievementElement>) children).trimToSize();
+		}
+
+		recount();
+	}
+
+	/**
+	 * Recomputes the child state counters from scratch, for when children were added without going through addChild()
+	 * or changed state while their parent pointer referred to another copy of this element.
+	 */
+	void recount()
+	{
+		final int oldContributed = getContributedWeight();
+		final int oldTotal = totalWeight;
+
+		completeChildren = 0;
+		startedChildren = 0;
+		ownCompletedWeight = computeCompletedWeight();
+		completedWeight = ownCompletedWeight;
+		totalWeight = getOwnWeight();
+
+		for (AchievementElement child : children)
+		{
+			countChild(child.getState(), 1);
+			completedWeight += child.getContributedWeight();
+			totalWeight += child.totalWeight;
+		}
+
+		updateContributedWeight();
+
+		if (parent != null)
+		{
+			parent.addWeight(getContributedWeight() - oldContributed, totalWeight - oldTotal);
+		}
+	}
+
+	/**
+	 * Recounts this subtree bottom up, for subtrees whose nodes may all be stale.
+	 */
+	void recountTree()
+	{
 		for (AchievementElement child : children)
 		{
-			switch (child.getState())
+			child.recountTree();
+		}
+
+		recount();
+	}
+
+	/**
+	 * Fraction of this subtree's weight that is complete, or 1 if this element is complete.
+	 */
+	public double getCompletion()
+	{
+		if (getState() == COMPLETE)
+		{
+			return 1;
+		}
+
+		return totalWeight == 0 ? 0 : (double) getContributedWeight() / totalWeight;
+	}
+
+	/**
+	 * This element's own weight, not counting its children. Must not depend on instance fields, as it is called
+	 * during construction.
+	 */
+	protected int getOwnWeight()
+	{
+		return 0;
+	}
+
+	/**
+	 * How much of the own weight is complete.
+	 */
+	protected int computeCompletedWeight()
+	{
+		return 0;
+	}
+
+	/**
+	 * How much of this subtree's completed weight counts towards its ancestors, at most its total weight.
+	 */
+	protected int getContributedWeight()
+	{
+		return completedWeight;
+	}
+
+	/**
+	 * Recomputes the contributed weight after the subtree weights or whatever else it depends on changed.
+	 */
+	protected void updateContributedWeight()
+	{
+	}
+
+	/**
+	 * Recomputes the own contribution after whatever it depends on changed, updating the ancestors' aggregates.
+	 */
+	protected final void updateWeight()
+	{
+		final int own = computeCompletedWeight();
+		final int delta = own - ownCompletedWeight;
+
+		ownCompletedWeight = own;
+		addWeight(delta, 0);
+	}
+
+	/**
+	 * Adds to this subtree's weights and passes the change in what it contributes on to the ancestors, stopping
+	 * at the first one whose contribution did not change.
+	 */
+	private void addWeight(int completed, int total)
+	{
+		for (AchievementElement element = this; element != null; element = element.parent)
+		{
+			final int contributed = element.getContributedWeight();
+
+			element.completedWeight += completed;
+			element.totalWeight += total;
+			element.updateContributedWeight();
+
+			final boolean changed = completed != 0 || total != 0;
+			completed = element.getContributedWeight() - contributed;
+
+			if (changed || completed != 0)
 			{
-				case INCOMPLETE:
-					complete = false;
-					break;
-				case IN_PROGRESS:
-					complete = false;
-				case COMPLETE:
-					inProgress = true;
+				element.invalidate();
 			}
+
+			if (completed == 0 && total == 0)
+			{
+				return;
+			}
+		}
+	}
+
+	private void countChild(AchievementState state, int delta)
+	{
+		if (state == COMPLETE)
+		{
+			completeChildren += delta;
+		}
+
+		if (state != INCOMPLETE)
+		{
+			startedChildren += delta;
+		}
+	}
+
+	/**
+	 * Updates the counters and, for registered elements, re-evaluates this element. A state change then propagates
+	 * to the next ancestor, so a leaf change costs O(1) per element along its path.
+	 */
+	private void onChildStateChanged(AchievementState old, AchievementState state)
+	{
+		countChild(old, -1);
+		countChild(state, 1);
+
+		if (isRegistered())
+		{
+			refresh();
+		}
+	}
+
+	public AchievementState getState()
+	{
+		return STATES[getBits(STATE_SHIFT, STATE_WIDTH)];
+	}
+
+	public boolean isForceComplete()
+	{
+		return getBits(FORCE_COMPLETE_SHIFT, 1) != 0;
+	}
+
+	public void setForceComplete(boolean forceComplete)
+	{
+		if (isForceComplete() != forceComplete)
+		{
+			setBits(FORCE_COMPLETE_SHIFT, 1, forceComplete ? 1 : 0);
+			invalidate();
+		}
+	}
+
+	/**
+	 * Returns the legacy expansion flag, if any, and clears it so that it is no longer persisted.
+	 */
+	Boolean takeLegacyExpanded()
+	{
+		final Boolean expanded = uiExpanded;
+		uiExpanded = null;
+		return expanded;
+	}
+
+	public void setKeywords(List<String> keywords)
+	{
+		this.keywords = ImmutableList.copyOf(keywords);
+		invalidate();
+	}
+
+	/**
+	 * Replaces this node's strings with pooled instances. Values are unchanged, so cached snapshots stay valid.
+	 */
+	public void intern(StringPool pool)
+	{
+		keywords = pool.intern(keywords);
+	}
+
+	boolean isDormant()
+	{
+		return dormant != null;
+	}
+
+	boolean isRegistered()
+	{
+		return stateListener != null;
+	}
+
+	/**
+	 * Drops the cached snapshot of this element along with those of its ancestors.
+	 * An element without a cached snapshot never has an ancestor with one, so the walk stops early.
+	 */
+	public void invalidate()
+	{
+		for (AchievementElement element = this; element != null && element.snapshot != null; element = element.parent)
+		{
+			element.snapshot = null;
 		}
+	}
+
+	public void reset()
+	{
+		setState(INCOMPLETE);
+		setForceComplete(false);
+		setBits(RESETS_SHIFT, RESETS_WIDTH, getResets() + 1);
+	}
+
+	int getResets()
+	{
+		return getBits(RESETS_SHIFT, RESETS_WIDTH);
+	}
 
-		if (complete)
+	void setResets(int resets)
+	{
+		setBits(RESETS_SHIFT, RESETS_WIDTH, resets);
+	}
+
+	public void click()
+	{
+		setForceComplete(!isForceComplete());
+	}
+
+	public AchievementState getChildrenState()
+	{
+		if (completeChildren == children.size())
 		{
 			return COMPLETE;
 		}
-		else if (inProgress)
+		else if (startedChildren > 0)
 		{
 			return IN_PROGRESS;
 		}
@@ -125,20 +507,43 @@ public abstract class AchievementElement
 
 	public void setState(AchievementState state)
 	{
-		AchievementState old = this.state;
-		this.state = state;
+		AchievementState old = getState();
+		setBits(STATE_SHIFT, STATE_WIDTH, state.ordinal());
 
 		if (old != state)
 		{
-			broadcastState();
+			broadcastState(old);
+
+			if (parent != null)
+			{
+				parent.onChildStateChanged(old, state);
+			}
 		}
 	}
 
+	protected final int getBits(int shift, int width)
+	{
+		return (flags >>> shift) & ((1 << width) - 1);
+	}
+
+	protected final void setBits(int shift, int width, int value)
+	{
+		final int mask = ((1 << width) - 1) << shift;
+		flags = (flags & ~mask) | ((value << shift) & mask);
+	}
+
 	protected void broadcastState()
 	{
+		broadcastState(getState());
+	}
+
+	private void broadcastState(AchievementState previous)
+	{
+		invalidate();
+
 		if (stateListener != null)
 		{
-			stateListener.onStateChanged(state);
+			stateListener.onStateChanged(previous, getState());
 		}
 	}
 }
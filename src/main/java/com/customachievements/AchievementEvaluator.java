@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import com.customachievements.requirements.Requirement;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Re-evaluates whole achievement trees against a client state snapshot. Root achievements are independent of
+ * each other, so large trees are partitioned by root across the common fork/join pool.
+ */
+class AchievementEvaluator
+{
+	// Total element count below which a full evaluation stays on the calling thread
+	static final int PARALLEL_THRESHOLD = 2048;
+
+	// Root achievements evaluated sequentially by a single fork/join task
+	private static final int ROOTS_PER_TASK = 4;
+
+	private AchievementEvaluator() {}
+
+	static void evaluate(List<AchievementElement> roots, ClientStateSnapshot snapshot, int elementCount)
+	{
+		if (elementCount < PARALLEL_THRESHOLD || roots.size() <= ROOTS_PER_TASK)
+		{
+			evaluate(roots, 0, roots.size(), snapshot);
+		}
+		else
+		{
+			ForkJoinPool.commonPool().invoke(new EvaluateTask(roots, 0, roots.size(), snapshot));
+		}
+	}
+
+	private static void evaluate(List<AchievementElement> elements, int from, int to, ClientStateSnapshot snapshot)
+	{
+		for (int i = from; i < to; i++)
+		{
+			evaluate(elements.get(i), snapshot);
+		}
+	}
+
+	private static void evaluate(AchievementElement element, ClientStateSnapshot snapshot)
+	{
+		// Children first so that parents merge their final states
+		final List<AchievementElement> children = element.getChildren();
+		evaluate(children, 0, children.size(), snapshot);
+
+		if (element instanceof Requirement)
+		{
+			((Requirement) element).forceUpdate(snapshot);
+		}
+
+		element.refresh();
+	}
+
+	@AllArgsConstructor
+	private static class EvaluateTask extends RecursiveAction
+	{
+		private final List<AchievementElement> roots;
+		private final int from;
+		private final int to;
+		private final ClientStateSnapshot snapshot;
+
+		@Override
+		protected void compute()
+		{
+			if (to - from <= ROOTS_PER_TASK)
+			{
+				evaluate(roots, from, to, snapshot);
+			}
+			else
+			{
+				final int mid = (from + to) >>> 1;
+
+				invokeAll(
+						new EvaluateTask(roots, from, mid, snapshot),
+						new EvaluateTask(roots, mid, to, snapshot));
+			}
+		}
+	}
+}
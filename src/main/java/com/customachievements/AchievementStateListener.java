@@ -27,5 +27,8 @@ package com.customachievements;
 
 public interface AchievementStateListener
 {
-	void onStateChanged(AchievementState state);
+	/**
+	 * Called on every state transition, and with equal states when only the displayed progress changed.
+	 */
+	void onStateChanged(AchievementState previous, AchievementState state);
 }
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import com.customachievements.requirements.Requirement;
+import com.customachievements.requirements.RequirementType;
+import com.google.common.collect.ImmutableMap;
+import lombok.Value;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Totals over the registered elements, kept current from registration and state transitions so that reading them
+ * never walks the tree. Transitions may be reported from fork/join workers, hence the atomic counters.
+ */
+class AchievementStatistics
+{
+	private static final AchievementState[] STATES = AchievementState.values();
+	private static final RequirementType[] TYPES = RequirementType.values();
+
+	private final AtomicIntegerArray achievements = new AtomicIntegerArray(STATES.length);
+	private final AtomicIntegerArray requirements = new AtomicIntegerArray(STATES.length);
+	private final AtomicIntegerArray requirementTypes = new AtomicIntegerArray(TYPES.length);
+
+	void add(AchievementElement element)
+	{
+		update(element, 1);
+	}
+
+	void remove(AchievementElement element)
+	{
+		update(element, -1);
+	}
+
+	void onStateChanged(AchievementElement element, AchievementState previous, AchievementState state)
+	{
+		if (previous != state)
+		{
+			final AtomicIntegerArray counts = countsOf(element);
+			counts.decrementAndGet(previous.ordinal());
+			counts.incrementAndGet(state.ordinal());
+		}
+	}
+
+	Statistics getStatistics()
+	{
+		final Map<RequirementType, Integer> types = new EnumMap<>(RequirementType.class);
+
+		for (RequirementType type : TYPES)
+		{
+			final int count = requirementTypes.get(type.ordinal());
+
+			if (count > 0)
+			{
+				types.put(type, count);
+			}
+		}
+
+		return new Statistics(
+				achievements.get(AchievementState.COMPLETE.ordinal()),
+				achievements.get(AchievementState.IN_PROGRESS.ordinal()),
+				achievements.get(AchievementState.INCOMPLETE.ordinal()),
+				requirements.get(AchievementState.COMPLETE.ordinal()),
+				requirements.get(AchievementState.IN_PROGRESS.ordinal()) +
+					requirements.get(AchievementState.INCOMPLETE.ordinal()) +
+					requirements.get(AchievementState.COMPLETE.ordinal()),
+				ImmutableMap.copyOf(types));
+	}
+
+	private void update(AchievementElement element, int delta)
+	{
+		countsOf(element).addAndGet(element.getState().ordinal(), delta);
+
+		if (element instanceof Requirement)
+		{
+			requirementTypes.addAndGet(((Requirement) element).getType().ordinal(), delta);
+		}
+
+		// Dormant descendants are counted by their summary until they are materialized and registered themselves
+		final DormantSubtree dormant = element.getDormant();
+
+		if (dormant != null)
+		{
+			achievements.addAndGet(AchievementState.COMPLETE.ordinal(), delta * dormant.getAchievements());
+
+			for (Map.Entry<RequirementType, Integer> entry : dormant.getRequirements().entrySet())
+			{
+				requirements.addAndGet(AchievementState.COMPLETE.ordinal(), delta * entry.getValue());
+				requirementTypes.addAndGet(entry.getKey().ordinal(), delta * entry.getValue());
+			}
+		}
+	}
+
+	private AtomicIntegerArray countsOf(AchievementElement element)
+	{
+		return element instanceof Requirement ? requirements : achievements;
+	}
+
+	@Value
+	static class Statistics
+	{
+		static final Statistics EMPTY = new Statistics(0, 0, 0, 0, 0, ImmutableMap.of());
+
+		int achievementsComplete;
+		int achievementsInProgress;
+		int achievementsIncomplete;
+		int requirementsComplete;
+		int requirements;
+		ImmutableMap<RequirementType, Integer> requirementsByType;
+
+		int getAchievements()
+		{
+			return achievementsComplete + achievementsInProgress + achievementsIncomplete;
+		}
+
+		/**
+		 * Share of requirements complete, or 0 if there are none.
+		 */
+		double getCompletion()
+		{
+			return requirements == 0 ? 0 : (double) requirementsComplete / requirements;
+		}
+	}
+}
@@ -27,6 +27,7 @@ package com.customachievements;
 
 import com.customachievements.events.ChunkEntered;
 import net.runelite.api.Client;
+import net.runelite.api.Player;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.events.GameTick;
 import net.runelite.client.eventbus.EventBus;
@@ -38,35 +39,60 @@ public class ChunkEnteredReporter
 {
 	private final Client client;
 	private final EventBus eventBus;
+	private final InterestSet interestSet;
+	private final ReporterScheduler scheduler;
 
-	private WorldPoint lastTile;
+	// Last tile as (plane << 28 | x << 14 | y)
+	private int lastPackedTile;
 	private int lastRegionId;
 
 	@Inject
-	public ChunkEnteredReporter(final Client client, final EventBus eventBus)
+	public ChunkEnteredReporter(
+			final Client client,
+			final EventBus eventBus,
+			final InterestSet interestSet,
+			final ReporterScheduler scheduler)
 	{
 		this.client = client;
 		this.eventBus = eventBus;
+		this.interestSet = interestSet;
+		this.scheduler = scheduler;
 
-		lastTile = null;
+		lastPackedTile = -1;
 		lastRegionId = -1;
 	}
 
 	@Subscribe
 	public void onGameTick(final GameTick _gameTick)
 	{
-		final WorldPoint tile = client.getLocalPlayer().getWorldLocation();
+		final Player player = client.getLocalPlayer();
 
-		if (lastTile == null || lastTile.distanceTo(tile) > 0)
+		if (player == null || !interestSet.hasRegions())
 		{
-			final int regionId = tile.getRegionID();
+			return;
+		}
+
+		final WorldPoint tile = player.getWorldLocation();
+		final int x = tile.getX();
+		final int y = tile.getY();
+		final int packedTile = (tile.getPlane() << 28) | (x << 14) | y;
 
-			lastTile = tile;
+		if (packedTile != lastPackedTile)
+		{
+			// Equivalent to WorldPoint#getRegionID
+			final int regionId = ((x >> 6) << 8) | (y >> 6);
+
+			lastPackedTile = packedTile;
 
 			if (lastRegionId != regionId)
 			{
 				lastRegionId = regionId;
-				eventBus.post(new ChunkEntered(regionId));
+				scheduler.activity();
+
+				if (interestSet.isRegionReferenced(regionId))
+				{
+					eventBus.post(new ChunkEntered(regionId));
+				}
 			}
 		}
 	}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
+import lombok.Getter;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.InventoryID;
+import net.runelite.api.Item;
+import net.runelite.api.ItemContainer;
+import net.runelite.api.Player;
+import net.runelite.api.Quest;
+import net.runelite.api.QuestState;
+import net.runelite.api.Skill;
+import net.runelite.client.game.ItemManager;
+
+/**
+ * Immutable copy of the client state that requirements are evaluated against.
+ * It must be captured on the client thread, but may be read from any thread afterwards.
+ */
+public class ClientStateSnapshot
+{
+	private static final Skill[] SKILLS = Skill.values();
+
+	public static final ClientStateSnapshot EMPTY = new ClientStateSnapshot(
+			false,
+			new int[SKILLS.length],
+			new int[SKILLS.length],
+			ImmutableMap.of(),
+			-1,
+			ImmutableMultiset.of());
+
+	@Getter
+	private final boolean loggedIn;
+
+	@Getter
+	private final int regionId;
+
+	private final int[] realSkillLevels;
+	private final int[] skillExperience;
+	private final ImmutableMap<Quest, QuestState> questStates;
+
+	// Lower case item names
+	private final ImmutableMultiset<String> inventory;
+
+	private ClientStateSnapshot(
+			boolean loggedIn,
+			int[] realSkillLevels,
+			int[] skillExperience,
+			ImmutableMap<Quest, QuestState> questStates,
+			int regionId,
+			ImmutableMultiset<String> inventory)
+	{
+		this.loggedIn = loggedIn;
+		this.realSkillLevels = realSkillLevels;
+		this.skillExperience = skillExperience;
+		this.questStates = questStates;
+		this.regionId = regionId;
+		this.inventory = inventory;
+	}
+
+	/**
+	 * Captures the current client state. Only the given quests are queried since each one runs a client script.
+	 */
+	public static ClientStateSnapshot capture(Client client, ItemManager itemManager, Iterable<Quest> quests)
+	{
+		final Player player = client.getLocalPlayer();
+
+		if (client.getGameState() != GameState.LOGGED_IN || player == null)
+		{
+			return EMPTY;
+		}
+
+		final int[] realSkillLevels = new int[SKILLS.length];
+		final int[] skillExperience = new int[SKILLS.length];
+
+		for (Skill skill : SKILLS)
+		{
+			if (skill != Skill.OVERALL)
+			{
+				realSkillLevels[skill.ordinal()] = client.getRealSkillLevel(skill);
+				skillExperience[skill.ordinal()] = client.getSkillExperience(skill);
+			}
+		}
+
+		final ImmutableMap.Builder<Quest, QuestState> questStates = ImmutableMap.builder();
+
+		for (Quest quest : quests)
+		{
+			questStates.put(quest, quest.getState(client));
+		}
+
+		final ImmutableMultiset.Builder<String> inventory = ImmutableMultiset.builder();
+		final ItemContainer container = client.getItemContainer(InventoryID.INVENTORY);
+
+		if (container != null)
+		{
+			for (Item item : container.getItems())
+			{
+				if (item.getId() != -1 && item.getQuantity() > 0)
+				{
+					final String name = itemManager.getItemComposition(item.getId()).getName();
+					inventory.addCopies(name.toLowerCase(), item.getQuantity());
+				}
+			}
+		}
+
+		return new ClientStateSnapshot(
+				true,
+				realSkillLevels,
+				skillExperience,
+				questStates.build(),
+				player.getWorldLocation().getRegionID(),
+				inventory.build());
+	}
+
+	public int getRealSkillLevel(Skill skill)
+	{
+		return realSkillLevels[skill.ordinal()];
+	}
+
+	public int getSkillExperience(Skill skill)
+	{
+		return skillExperience[skill.ordinal()];
+	}
+
+	/**
+	 * Returns the state of the given quest, or null if it was not captured.
+	 */
+	public QuestState getQuestState(Quest quest)
+	{
+		return questStates.get(quest);
+	}
+
+	public int getItemCount(String name)
+	{
+		return inventory.count(name.toLowerCase());
+	}
+}
@@ -30,12 +30,15 @@ import java.awt.Color;
 import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
+import net.runelite.client.config.Range;
+import net.runelite.client.config.Units;
 
 @ConfigGroup(CustomAchievementsConfig.CONFIG_GROUP)
 public interface CustomAchievementsConfig extends Config
 {
 	String CONFIG_GROUP = "customachievements";
 	String ELEMENTS = "elements";
+	String VIEW_STATE = "viewState";
 
 	@ConfigItem(
 			position = 0,
@@ -47,6 +50,14 @@ public interface CustomAchievementsConfig extends Config
 
 	@ConfigItem(
 			position = 1,
+			keyName = "killCreditPolicy",
+			name = "Ironman Kill Credit",
+			description = "How kills are credited when other players damage the same monster (Ironman Mode only)."
+	)
+	default KillCreditPolicy killCreditPolicy() { return KillCreditPolicy.NO_OTHER_DAMAGE; }
+
+	@ConfigItem(
+			position = 2,
 			keyName = "isInfoHeaderVisible",
 			name = "Show Informational Header",
 			description = "Show informational header."
@@ -54,7 +65,7 @@ public interface CustomAchievementsConfig extends Config
 	default boolean isInfoHeaderVisible() { return true; }
 
 	@ConfigItem(
-			position = 2,
+			position = 3,
 			keyName = "notificationsEnabled",
 			name = "Enable Chat Notifications",
 			description = "Enable notification messages in the chatbox."
@@ -62,10 +73,20 @@ public interface CustomAchievementsConfig extends Config
 	default boolean notificationsEnabled() { return true; }
 
 	@ConfigItem(
-			position = 3,
+			position = 4,
 			keyName = "notificationsColor",
 			name = "Chat Notification Color",
 			description = "The color applied to messages in the chatbox when unlocking an achievement."
 	)
 	default Color notificationsColor() { return new Color(120, 20, 120); }
+
+	@Range(min = 1, max = 100)
+	@Units(Units.MILLISECONDS)
+	@ConfigItem(
+			position = 5,
+			keyName = "evaluationBudget",
+			name = "Evaluation Budget",
+			description = "Maximum time spent re-evaluating achievements on each game tick."
+	)
+	default int evaluationBudget() { return 5; }
 }
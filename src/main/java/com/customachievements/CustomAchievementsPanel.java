@@ -31,7 +31,10 @@ import java.awt.Dimension;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.GridLayout;
+import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
@@ -48,23 +51,29 @@ import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import javax.swing.AbstractAction;
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
 import javax.swing.JButton;
+import javax.swing.JComboBox;
 import javax.swing.JComponent;
 import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
+import javax.swing.JScrollBar;
 import javax.swing.JScrollPane;
 import javax.swing.JSeparator;
 import javax.swing.JToggleButton;
+import javax.swing.KeyStroke;
 import javax.swing.ScrollPaneConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.plaf.basic.BasicSeparatorUI;
 
+import com.customachievements.requirements.RequirementType;
 import com.google.common.collect.ImmutableSet;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
@@ -118,8 +127,11 @@ public class CustomAchievementsPanel extends PluginPanel
 
 	private final JLabel title = new JLabel();
 	private final JLabel info = new JLabel();
+	private final JLabel statisticsLabel = new JLabel();
 	private final IconTextField searchBar = new IconTextField();
 	private final JSeparator infoSeparator = new JSeparator();
+	private final JComboBox<ViewFilter> filterComboBox = new JComboBox<>(ViewFilter.values());
+	private final JComboBox<ViewSort> sortComboBox = new JComboBox<>(ViewSort.values());
 
 	private final JButton clearButton = new JButton();
 	private final JButton importButton = new JButton();
@@ -128,11 +140,16 @@ public class CustomAchievementsPanel extends PluginPanel
 	private final JToggleButton editToggle = new JToggleButton();
 
 	private final List<JSeparator> insertionIndicators = new ArrayList<>();
-	private final Map<AchievementElement, Integer> insertionIndicatorIndexMap = new HashMap<>();
+	private final Map<Long, Integer> insertionIndicatorIndexMap = new HashMap<>();
 	private boolean dragging = false;
+	private boolean scrollRestored = false;
+
+	private final ViewIndex viewIndex = new ViewIndex();
 
 	private final CustomAchievementsPlugin plugin;
 	private final CustomAchievementsConfig config;
+	private final ViewState viewState;
+	private final JScrollBar scrollBar;
 
 	private final EditAchievementPanel editAchievementPanel;
 
@@ -180,7 +197,8 @@ public class CustomAchievementsPanel extends PluginPanel
 
 		INFO_USAGE = "<html>"
 				+ "Create and edit Custom Achievements using the menu buttons above. Additional tools are shown in "
-				+ "Edit Mode. For help and usage visit the custom-achievements GitHub page."
+				+ "Edit Mode. Undo and redo changes with Ctrl+Z and Ctrl+Y. For help and usage visit the "
+				+ "custom-achievements GitHub page."
 				+ "</html>";
 
 		INFO_EDIT = "<html>"
@@ -188,12 +206,16 @@ public class CustomAchievementsPanel extends PluginPanel
 				+ "</html>";
 	}
 
-	CustomAchievementsPanel(final CustomAchievementsPlugin plugin, final CustomAchievementsConfig config)
+	CustomAchievementsPanel(
+			final CustomAchievementsPlugin plugin,
+			final CustomAchievementsConfig config,
+			final ViewState viewState)
 	{
 		super(false);
 
 		this.plugin = plugin;
 		this.config = config;
+		this.viewState = viewState;
 
 		setLayout(new BorderLayout());
 		setBorder(BorderFactory.createEmptyBorder(BORDER_OFFSET, BORDER_OFFSET, BORDER_OFFSET, BORDER_OFFSET));
@@ -209,6 +231,13 @@ public class CustomAchievementsPanel extends PluginPanel
 		final JPanel headerSouthWrapper = new JPanel();
 		headerSouthWrapper.setLayout(new BorderLayout());
 
+		final JPanel searchWrapper = new JPanel();
+		searchWrapper.setLayout(new BorderLayout());
+
+		final JPanel viewModeWrapper = new JPanel();
+		viewModeWrapper.setLayout(new GridLayout(1, 2, BORDER_OFFSET, 0));
+		viewModeWrapper.setBorder(BorderFactory.createEmptyBorder(0, 0, BORDER_OFFSET, 0));
+
 		final JPanel achievementsWrapper = new JPanel();
 		achievementsWrapper.setLayout(new BorderLayout());
 		achievementsWrapper.setBackground(ColorScheme.DARKER_GRAY_COLOR);
@@ -216,6 +245,8 @@ public class CustomAchievementsPanel extends PluginPanel
 		final JScrollPane achievementsScrollPane = new JScrollPane(achievementsWrapper);
 		achievementsScrollPane.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
 
+		scrollBar = achievementsScrollPane.getVerticalScrollBar();
+
 		editAchievementPanel = new EditAchievementPanel(plugin);
 		editAchievementPanel.setVisible(false);
 		editAchievementPanel.addActionListener(e -> {
@@ -224,15 +255,30 @@ public class CustomAchievementsPanel extends PluginPanel
 			refresh();
 		});
 
+		scrollBar.addAdjustmentListener(e -> {
+			// Ignore adjustments made while the restored position has yet to be applied
+			if (scrollRestored && !e.getValueIsAdjusting() && !editAchievementPanel.isVisible())
+			{
+				viewState.setScrollPosition(e.getValue());
+			}
+		});
+
 		achievementsPanel.setLayout(new GridBagLayout());
 		achievementsPanel.setBorder(BorderFactory.createEmptyBorder());
 
+		bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK), "undo", plugin::undo);
+		bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK), "redo", plugin::redo);
+		bindKey(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK), "redo", plugin::redo);
+
 		title.setForeground(Color.WHITE);
 		info.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
 		info.setFont(FontManager.getRunescapeSmallFont());
 		info.setBorder(BorderFactory.createEmptyBorder(BORDER_OFFSET, 0, BORDER_OFFSET, 0));
 		infoSeparator.setUI(new BasicSeparatorUI());
 		infoSeparator.setBackground(ColorScheme.LIGHT_GRAY_COLOR);
+		statisticsLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+		statisticsLabel.setFont(FontManager.getRunescapeSmallFont());
+		statisticsLabel.setBorder(BorderFactory.createEmptyBorder(0, 0, BORDER_OFFSET, 0));
 
 		searchBar.setIcon(IconTextField.Icon.SEARCH);
 		searchBar.setPreferredSize(new Dimension(PANEL_WIDTH, SEARCH_BAR_HEIGHT));
@@ -258,6 +304,28 @@ public class CustomAchievementsPanel extends PluginPanel
 			}
 		});
 
+		filterComboBox.setForeground(Color.WHITE);
+		filterComboBox.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+		filterComboBox.setToolTipText("Show");
+		filterComboBox.addActionListener(e -> {
+			if (filterComboBox.getSelectedItem() != viewState.getFilter())
+			{
+				viewState.setFilter((ViewFilter) filterComboBox.getSelectedItem());
+				refresh();
+			}
+		});
+
+		sortComboBox.setForeground(Color.WHITE);
+		sortComboBox.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+		sortComboBox.setToolTipText("Sort (elements can only be dragged in manual order)");
+		sortComboBox.addActionListener(e -> {
+			if (sortComboBox.getSelectedItem() != viewState.getSort())
+			{
+				viewState.setSort((ViewSort) sortComboBox.getSelectedItem());
+				refresh();
+			}
+		});
+
 		clearButton.setText("Clear All");
 		clearButton.setVisible(false);
 		clearButton.setBorder(BorderFactory.createEmptyBorder(BORDER_OFFSET, 0, BORDER_OFFSET, 0));
@@ -284,7 +352,7 @@ public class CustomAchievementsPanel extends PluginPanel
 		addButton.setToolTipText("Add New Achievement");
 		addButton.addActionListener(e -> {
 			editAchievementPanel.setVisible(true);
-			editAchievementPanel.setTarget(plugin.getElements().size(), null, plugin.createAchievement("New Achievement"));
+			editAchievementPanel.setTarget(plugin.getSnapshot().size(), 0, plugin.createAchievement("New Achievement"));
 			refresh();
 		});
 
@@ -301,7 +369,12 @@ public class CustomAchievementsPanel extends PluginPanel
 		actionsWrapper.add(editToggle);
 		headerSouthWrapper.add(infoSeparator, BorderLayout.NORTH);
 		headerSouthWrapper.add(info, BorderLayout.CENTER);
-		headerSouthWrapper.add(searchBar, BorderLayout.SOUTH);
+		viewModeWrapper.add(filterComboBox);
+		viewModeWrapper.add(sortComboBox);
+		searchWrapper.add(statisticsLabel, BorderLayout.NORTH);
+		searchWrapper.add(viewModeWrapper, BorderLayout.CENTER);
+		searchWrapper.add(searchBar, BorderLayout.SOUTH);
+		headerSouthWrapper.add(searchWrapper, BorderLayout.SOUTH);
 		achievementsWrapper.add(achievementsPanel, BorderLayout.NORTH);
 
 		headerPanel.add(title, BorderLayout.WEST);
@@ -335,7 +408,7 @@ public class CustomAchievementsPanel extends PluginPanel
 			return;
 		}
 
-		if (!plugin.getElements().isEmpty())
+		if (!plugin.getSnapshot().isEmpty())
 		{
 			int confirm = JOptionPane.showConfirmDialog(this,
 					"Are you sure you want to import this file? This action will DELETE all current achievements.",
@@ -354,7 +427,7 @@ public class CustomAchievementsPanel extends PluginPanel
 			in.lines().forEachOrdered(line -> json.append(line).append(System.lineSeparator()));
 
 			plugin.loadConfig(json.toString());
-			plugin.updateConfig();
+			plugin.bulkRefresh();
 		}
 		catch (FileNotFoundException e)
 		{
@@ -397,11 +470,16 @@ public class CustomAchievementsPanel extends PluginPanel
 			file = new File(file.getParentFile(), file.getName() + ".json");
 		}
 
+		final File target = file;
+		final CustomAchievementsSerializer serializer = new CustomAchievementsSerializer().setPrettyPrinting();
+
+		plugin.toJson(serializer, json -> writeToFile(target, json));
+	}
+
+	private void writeToFile(File file, String json)
+	{
 		try (FileWriter out = new FileWriter(file))
 		{
-			final CustomAchievementsSerializer serializer = new CustomAchievementsSerializer().setPrettyPrinting();
-			final String json = serializer.toJson(plugin.getElements());
-
 			out.write(json);
 		}
 		catch (IOException e)
@@ -437,28 +515,33 @@ public class CustomAchievementsPanel extends PluginPanel
 			title.setText(TITLE_EDIT);
 			info.setText(INFO_EDIT);
 			searchBar.setVisible(false);
+			statisticsLabel.setVisible(false);
+			filterComboBox.setVisible(false);
+			sortComboBox.setVisible(false);
 			clearButton.setVisible(false);
 
 			achievementsPanel.add(editAchievementPanel, gbc);
 		}
 		else
 		{
-			final Deque<Deque<AchievementElement>> stack = new ArrayDeque<>();
-			final Deque<AchievementElement> parents = new ArrayDeque<>();
-			Deque<AchievementElement> elements;
+			final List<ElementSnapshot> roots = plugin.getSnapshot();
+			final boolean manual;
+			final Deque<Deque<ElementSnapshot>> stack = new ArrayDeque<>();
+			final Deque<ElementSnapshot> parents = new ArrayDeque<>();
+			Deque<ElementSnapshot> elements;
 
 			final String searchText = searchBar.getText().toLowerCase();
 			final Iterable<String> searchTerms = Arrays.asList(searchText.split(LIST_SEPARATOR_REGEX));
-			final ImmutableSet<AchievementElement> filteredElements = searchText.isEmpty() ?
+			final ImmutableSet<Long> filteredElements = searchText.isEmpty() ?
 					ImmutableSet.of() :
-					filteredAchievementElements(searchTerms);
+					filteredAchievementElements(roots, searchTerms);
 
 			JPanel wrapper;
 			ActionListener expandCallback;
 			ActionListener editCallback;
 			ActionListener resetCallback;
 			ActionListener removeCallback;
-			DragAdapter<AchievementElement> dragAdapter;
+			DragAdapter<ElementSnapshot> dragAdapter;
 
 			JSeparator indicator;
 
@@ -468,9 +551,17 @@ public class CustomAchievementsPanel extends PluginPanel
 			title.setText(TITLE_MAIN);
 			info.setText(INFO_USAGE);
 			searchBar.setVisible(true);
+			filterComboBox.setVisible(true);
+			sortComboBox.setVisible(true);
+			filterComboBox.setSelectedItem(viewState.getFilter());
+			sortComboBox.setSelectedItem(viewState.getSort());
 			clearButton.setVisible(editToggle.isSelected());
+			updateStatistics(plugin.getStatistics());
+
+			viewIndex.setMode(viewState.getFilter(), viewState.getSort());
+			manual = viewIndex.isManual();
 
-			stack.push(new ArrayDeque<>(plugin.getElements()));
+			stack.push(new ArrayDeque<>(viewIndex.update(roots)));
 
 			while (!stack.isEmpty())
 			{
@@ -478,73 +569,71 @@ public class CustomAchievementsPanel extends PluginPanel
 
 				while (!elements.isEmpty())
 				{
-					final AchievementElement parent = parents.peek();
-					final AchievementElement element = elements.pop();
-					final List<AchievementElement> elementsRef = parent == null ?
-							plugin.getElements() :
-							parent.getChildren();
-					final int index = elementsRef.size() - elements.size() - 1;
+					final ElementSnapshot parentNode = parents.peek();
+					final ElementSnapshot node = elements.pop();
+					final List<ElementSnapshot> elementsRef = parentNode == null ?
+							roots :
+							parentNode.getChildren();
+
+					final long parentId = parentNode == null ? 0 : parentNode.getId();
+					final long id = node.getId();
+					final int index = manual ?
+							elementsRef.size() - elements.size() - 1 :
+							viewIndex.indexOf(parentId, id);
 
 					// Apply search filter
-					if (!searchText.isEmpty() && !filteredElements.contains(element))
+					if (!searchText.isEmpty() && !filteredElements.contains(id))
 					{
 						continue;
 					}
 
-					element.refresh();
-					JLabel label = createAchievementElement(element);
+					JLabel label = createAchievementElement(node);
 
 					expandCallback = e -> {
-						element.setUiExpanded(!element.isUiExpanded());
+						viewState.toggleExpanded(node.getId());
+
+						// The children show up with the next snapshot
+						if (node.isDormant())
+						{
+							plugin.materialize(id);
+						}
+
 						refresh();
 					};
 
-					editCallback = e -> {
+					editCallback = e -> plugin.copy(id, copy -> {
 						editAchievementPanel.setVisible(true);
-						editAchievementPanel.setTarget(index, parent, element);
+						editAchievementPanel.setTarget(index, parentId, copy);
 						refresh();
-					};
+					});
 
-					resetCallback = e -> {
-						element.reset();
-						plugin.updateConfig();
-						refresh();
-					};
+					resetCallback = e -> plugin.reset(id);
+					removeCallback = e -> plugin.remove(id);
 
-					if (parent == null)
+					// Only the manual order can be rearranged by dragging
+					dragAdapter = !manual ? null : new DragAdapter<ElementSnapshot>(index, elementsRef)
 					{
-						removeCallback = e -> {
-							plugin.remove(element);
-							plugin.updateConfig();
-							refresh();
-						};
-					}
-					else
-					{
-						removeCallback = e -> {
-							plugin.remove(parent, element);
-							plugin.updateConfig();
-							refresh();
-						};
-					}
+						@Override
+						public void move(int from, int to)
+						{
+							plugin.move(parentId, from, to);
+						}
 
-					dragAdapter = new DragAdapter<AchievementElement>(index, elementsRef)
-					{
 						@Override
 						public int indicatorIndex(int listIndex)
 						{
 							if (listIndex < elementsRef.size())
 							{
-								return insertionIndicatorIndexMap.get(elementsRef.get(listIndex));
+								return insertionIndicatorIndexMap.get(elementsRef.get(listIndex).getId());
 							}
 							else
 							{
-								return insertionIndicatorIndexMap.get(elementsRef.get(elementsRef.size() - 1)) + 1;
+								return insertionIndicatorIndexMap.get(elementsRef.get(elementsRef.size() - 1).getId()) + 1;
 							}
 						}
 					};
 
-					if (element.getChildren().isEmpty())
+					if (node.getChildren().isEmpty() && !node.isDormant())
 					{
 						wrapper = createElementWrapper(
 								label,
@@ -565,24 +654,27 @@ public class CustomAchievementsPanel extends PluginPanel
 								removeCallback,
 								dragAdapter,
 								stack.size(),
-								element.isUiExpanded()
+								viewState.isExpanded(node.getId())
 						);
 					}
 
-					dragAdapter.setHighlightComponent(wrapper);
+					if (dragAdapter != null)
+					{
+						dragAdapter.setHighlightComponent(wrapper);
+					}
 
 					indicator = createInsertionIndicator();
-					insertionIndicatorIndexMap.put(element, insertionIndicators.size() - 1);
+					insertionIndicatorIndexMap.put(id, insertionIndicators.size() - 1);
 					achievementsPanel.add(indicator, gbc);
 					gbc.gridy++;
 
 					achievementsPanel.add(wrapper, gbc);
 					gbc.gridy++;
 
-					if (element.isUiExpanded() && !element.getChildren().isEmpty())
+					if (viewState.isExpanded(node.getId()) && !node.getChildren().isEmpty())
 					{
-						stack.push(new ArrayDeque<>(element.getChildren()));
-						parents.push(element);
+						stack.push(new ArrayDeque<>(viewIndex.childrenOf(node)));
+						parents.push(node);
 						break;
 					}
 				}
@@ -600,12 +692,59 @@ public class CustomAchievementsPanel extends PluginPanel
 
 			indicator = createInsertionIndicator();
 			achievementsPanel.add(indicator, gbc);
+
+			if (!scrollRestored && !roots.isEmpty())
+			{
+				// Wait for the layout to update before scrolling back to where the panel was left
+				SwingUtilities.invokeLater(() -> {
+					scrollBar.setValue(viewState.getScrollPosition());
+					scrollRestored = true;
+				});
+			}
 		}
 
 		revalidate();
 		repaint();
 	}
 
+	private void bindKey(KeyStroke keyStroke, String name, Runnable action)
+	{
+		getInputMap(WHEN_ANCESTOR_OF_FOCUSED_COMPONENT).put(keyStroke, name);
+		getActionMap().put(name, new AbstractAction()
+		{
+			@Override
+			public void actionPerformed(ActionEvent e)
+			{
+				// The editor works on a copy, which a restored version would orphan
+				if (!editAchievementPanel.isVisible())
+				{
+					action.run();
+				}
+			}
+		});
+	}
+
+	private void updateStatistics(AchievementStatistics.Statistics statistics)
+	{
+		statisticsLabel.setVisible(statistics.getAchievements() > 0);
+		statisticsLabel.setText(String.format("%d/%d achievements, %d%% of requirements",
+				statistics.getAchievementsComplete(),
+				statistics.getAchievements(),
+				(int) Math.floor(statistics.getCompletion() * 100)));
+
+		final StringBuilder tooltip = new StringBuilder("<html>")
+				.append(String.format("Complete: %d<br>", statistics.getAchievementsComplete()))
+				.append(String.format("In Progress: %d<br>", statistics.getAchievementsInProgress()))
+				.append(String.format("Incomplete: %d", statistics.getAchievementsIncomplete()));
+
+		for (Map.Entry<RequirementType, Integer> entry : statistics.getRequirementsByType().entrySet())
+		{
+			tooltip.append(String.format("<br>%s Requirements: %d", entry.getKey(), entry.getValue()));
+		}
+
+		statisticsLabel.setToolTipText(tooltip.append("</html>").toString());
+	}
+
 	private void enableActions(boolean enable)
 	{
 		importButton.setEnabled(enable);
@@ -624,22 +763,22 @@ public class CustomAchievementsPanel extends PluginPanel
 		if (confirm == JOptionPane.OK_OPTION)
 		{
 			plugin.clear();
-			plugin.updateConfig();
-			refresh();
 		}
 	}
 
-	private ImmutableSet<AchievementElement> filteredAchievementElements(@NonNull Iterable<String> searchTerms)
+	private ImmutableSet<Long> filteredAchievementElements(
+			List<ElementSnapshot> roots,
+			@NonNull Iterable<String> searchTerms)
 	{
-		final ImmutableSet.Builder<AchievementElement> filteredElementsBuilder = new ImmutableSet.Builder<>();
-		final Deque<Deque<AchievementElement>> stack = new ArrayDeque<>();
-		final Deque<AchievementElement> path = new ArrayDeque<>();
-		Deque<AchievementElement> elements;
+		final ImmutableSet.Builder<Long> filteredElementsBuilder = new ImmutableSet.Builder<>();
+		final Deque<Deque<ElementSnapshot>> stack = new ArrayDeque<>();
+		final Deque<ElementSnapshot> path = new ArrayDeque<>();
+		Deque<ElementSnapshot> elements;
 
 		final List<String> elementNameWrapper = new ArrayList<>(1);
 		elementNameWrapper.add("");
 
-		stack.push(new ArrayDeque<>(plugin.getElements()));
+		stack.push(new ArrayDeque<>(roots));
 
 		while (!stack.isEmpty())
 		{
@@ -647,7 +786,7 @@ public class CustomAchievementsPanel extends PluginPanel
 
 			while (!elements.isEmpty())
 			{
-				final AchievementElement element = elements.pop();
+				final ElementSnapshot element = elements.pop();
 				elementNameWrapper.set(0, element.toString().toLowerCase());
 
 				// Check for matches against keywords and the element name
@@ -659,14 +798,14 @@ public class CustomAchievementsPanel extends PluginPanel
 				{
 					if (matched)
 					{
-						Deque<AchievementElement> children = new ArrayDeque<>(element.getChildren());
-						AchievementElement child;
+						Deque<ElementSnapshot> children = new ArrayDeque<>(element.getChildren());
+						ElementSnapshot child;
 
 						while (!children.isEmpty())
 						{
 							child = children.pop();
 							children.addAll(child.getChildren());
-							filteredElementsBuilder.add(child);
+							filteredElementsBuilder.add(child.getId());
 						}
 					}
 					else
@@ -680,7 +819,10 @@ public class CustomAchievementsPanel extends PluginPanel
 				if (matched)
 				{
 					path.push(element);
-					filteredElementsBuilder.addAll(path);
+					for (ElementSnapshot entry : path)
+					{
+						filteredElementsBuilder.add(entry.getId());
+					}
 					path.pop();
 				}
 			}
@@ -699,24 +841,25 @@ public class CustomAchievementsPanel extends PluginPanel
 		return filteredElementsBuilder.build();
 	}
 
-	private JLabel createAchievementElement(AchievementElement element)
+	private JLabel createAchievementElement(ElementSnapshot element)
 	{
 		String forceIndicator = element.isForceComplete() ? " *" : "";
 
-		JLabel label = new JLabel();
+		ProgressLabel label = new ProgressLabel();
 		label.setForeground(element.getState().getColor());
 		label.setText(String.format("%s%s", element.toString(), forceIndicator));
-		label.setToolTipText(String.format("%s%s: %s", element.toString(), forceIndicator, element.getState().toString()));
+		label.setToolTipText(String.format("%s%s: %s (%d%%)",
+				element.toString(),
+				forceIndicator,
+				element.getState().toString(),
+				(int) Math.floor(element.getCompletion() * 100)));
+		label.setCompletion(element.getCompletion(), element.getState().getColor());
 		label.addMouseListener(new MouseAdapter()
 		{
 			@Override
 			public void mousePressed(MouseEvent e)
 			{
-				element.click();
-				element.refresh();
-
-				plugin.updateConfig();
-				refresh();
+				plugin.click(element.getId());
 			}
 
 			@Override
@@ -804,8 +947,16 @@ public class CustomAchievementsPanel extends PluginPanel
 			dragButton.setPreferredSize(new Dimension(BUTTON_WIDTH, LIST_ENTRY_HEIGHT));
 			dragButton.setRolloverIcon(DRAG_ICON);
 			dragButton.setToolTipText("Drag");
-			dragButton.addMouseListener(dragAdapter);
-			dragButton.addMouseMotionListener(dragAdapter);
+
+			if (dragAdapter != null)
+			{
+				dragButton.addMouseListener(dragAdapter);
+				dragButton.addMouseMotionListener(dragAdapter);
+			}
+			else
+			{
+				dragButton.setEnabled(false);
+			}
 
 			JButton editButton = new JButton(MINI_EDIT_ICON_FADED);
 			SwingUtil.removeButtonDecorations(editButton);
@@ -870,6 +1021,11 @@ public class CustomAchievementsPanel extends PluginPanel
 		 */
 		public abstract int indicatorIndex(int listIndex);
 
+		/**
+		 * Moves the dragged list entry from one index to another.
+		 */
+		public abstract void move(int from, int to);
+
 		public void setHighlightComponent(JComponent component)
 		{
 			this.component = component;
@@ -898,14 +1054,16 @@ public class CustomAchievementsPanel extends PluginPanel
 				selectedIndex -= 1;
 			}
 
+			dragging = false;
+
 			if (selectedIndex != index)
 			{
-				list.add(selectedIndex, list.remove(index));
+				move(index, selectedIndex);
+			}
+			else
+			{
+				refresh();
 			}
-
-			dragging = false;
-			plugin.updateConfig();
-			refresh();
 		}
 
 		@Override
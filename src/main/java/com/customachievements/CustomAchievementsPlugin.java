@@ -25,8 +25,16 @@
  */
 package com.customachievements;
 
+import com.customachievements.events.ChunkEntered;
+import com.customachievements.events.ItemsValidated;
+import com.customachievements.events.KilledNpc;
+import com.customachievements.events.QuestStateChanged;
 import com.customachievements.requirements.AbstractRequirement;
+import com.customachievements.requirements.AchievementRequirement;
 import com.customachievements.requirements.ChunkRequirement;
+import com.customachievements.requirements.CountedRequirement;
+import com.customachievements.requirements.GroupOperator;
+import com.customachievements.requirements.GroupRequirement;
 import com.customachievements.requirements.ItemRequirement;
 import com.customachievements.requirements.QuestRequirement;
 import com.customachievements.requirements.Requirement;
@@ -34,22 +42,30 @@ import com.customachievements.requirements.RequirementType;
 import com.customachievements.requirements.SkillRequirement;
 import com.customachievements.requirements.SkillTargetType;
 import com.customachievements.requirements.SlayRequirement;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
 import com.google.inject.Provides;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
 import net.runelite.api.Quest;
 import net.runelite.api.Skill;
 import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.StatChanged;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.chat.ChatMessageManager;
 import net.runelite.client.chat.QueuedMessage;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.ConfigChanged;
+import net.runelite.client.game.ItemManager;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDependency;
 import net.runelite.client.plugins.PluginDescriptor;
@@ -62,9 +78,16 @@ import javax.inject.Inject;
 import javax.swing.SwingUtilities;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @PluginDescriptor(
 	name = "Custom Achievements",
@@ -73,13 +96,19 @@ import java.util.concurrent.TimeUnit;
 	enabledByDefault = false
 )
 @PluginDependency(LootTrackerPlugin.class)
+@Slf4j
 public class CustomAchievementsPlugin extends Plugin
 {
-	// Scheduled update frequency (in seconds)
-	public static final int UPDATE_FREQUENCY = 10;
+	// Confined to the model thread, the panel reads the published snapshot instead
+	private final List<AchievementElement> elements = new ArrayList<>();
+	private final Map<Long, AchievementElement> elementsById = new HashMap<>();
 
 	@Getter
-	private final List<AchievementElement> elements = new ArrayList<>();
+	private volatile ImmutableList<ElementSnapshot> snapshot = ImmutableList.of();
+
+	// Published together with the snapshot so the two agree
+	@Getter(AccessLevel.PACKAGE)
+	private volatile AchievementStatistics.Statistics statistics = AchievementStatistics.Statistics.EMPTY;
 
 	@Getter
 	private final CustomAchievementsSerializer serializer = new CustomAchievementsSerializer();
@@ -93,6 +122,12 @@ public class CustomAchievementsPlugin extends Plugin
 	@Inject
 	private Client client;
 
+	@Inject
+	private ClientThread clientThread;
+
+	@Inject
+	private ItemManager itemManager;
+
 	@Inject
 	private ClientToolbar clientToolbar;
 
@@ -117,10 +152,51 @@ public class CustomAchievementsPlugin extends Plugin
 	@Inject
 	private ChunkEnteredReporter chunkEnteredReporter;
 
+	@Inject
+	private InterestSet interestSet;
+
+	@Inject
+	private ReporterScheduler reporterScheduler;
+
+	@Inject
+	private ViewState viewState;
+
+	@Inject
+	private StringPool stringPool;
+
 	// Tick timestamp on login
 	private int loginTickCount = 0;
 	private boolean loggedOut = true;
 
+	private final ModelActor actor = new ModelActor(this::flush);
+	private final RequirementDispatcher dispatcher = new RequirementDispatcher(this::materialize);
+	private final TimeSlicedEvaluator slicedEvaluator = new TimeSlicedEvaluator(
+			element -> viewState.isExpanded(element.getId()));
+	private final ModelHistory history = new ModelHistory();
+	private final DependencyGraph dependencyGraph = new DependencyGraph(elementsById);
+	private final AchievementStatistics statisticsCounters = new AchievementStatistics();
+
+	// Roots with elements added since they were last evaluated against the client state, model thread only
+	private final Set<AchievementElement> dirtyRoots = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	// Registered element count, used to decide whether a full evaluation is worth parallelizing
+	private int elementCount = 0;
+
+	// State changes may be reported from fork/join workers, so they are collected here until the next flush
+	private volatile boolean stateChanged = false;
+
+	// Pending work for the next flush, model thread only
+	private boolean persistRequested = false;
+	private boolean snapshotRequested = false;
+
+	// Whether a login or import refresh is still being evaluated, model thread only
+	private boolean bulkRefreshing = false;
+
+	// Set by the last command before the model thread stops, model thread only
+	private boolean stopping = false;
+
+	private NotificationPipeline notifications;
+
 	private CustomAchievementsPanel panel;
 	private NavigationButton navigationButton;
 
@@ -152,121 +228,306 @@ public class CustomAchievementsPlugin extends Plugin
 			loginTickCount = client.getTickCount();
 
 			// Wait for startup scripts and events to run before refreshing to avoid flicker
-			executorService.schedule(this::globalRefresh, 1, TimeUnit.SECONDS);
+			executorService.schedule(this::bulkRefresh, 1, TimeUnit.SECONDS);
 		}
 	}
 
+	@Subscribe
+	public void onGameTick(final GameTick _gameTick)
+	{
+		notifications.onGameTick();
+
+		actor.execute(() ->
+		{
+			if (slicedEvaluator.hasWork())
+			{
+				slicedEvaluator.runSlice(TimeUnit.MILLISECONDS.toNanos(config.evaluationBudget()));
+
+				if (bulkRefreshing && !slicedEvaluator.hasWork())
+				{
+					endBulkRefresh();
+				}
+			}
+		});
+	}
+
+	@Subscribe
+	public void onStatChanged(final StatChanged statChanged)
+	{
+		actor.execute(() -> dispatcher.dispatch(statChanged));
+	}
+
+	@Subscribe
+	public void onItemsValidated(final ItemsValidated itemsValidated)
+	{
+		actor.execute(() -> dispatcher.dispatch(itemsValidated));
+	}
+
+	@Subscribe
+	public void onKilledNpc(final KilledNpc killedNpc)
+	{
+		actor.execute(() -> dispatcher.dispatch(killedNpc));
+	}
+
+	@Subscribe
+	public void onQuestStateChanged(final QuestStateChanged questStateChanged)
+	{
+		actor.execute(() -> dispatcher.dispatch(questStateChanged));
+	}
+
+	@Subscribe
+	public void onChunkEntered(final ChunkEntered chunkEntered)
+	{
+		actor.execute(() -> dispatcher.dispatch(chunkEntered));
+	}
+
+	/**
+	 * Re-evaluates the achievements that gained elements since they were last evaluated, e.g. through an edit or
+	 * undo, on the model thread and spread over as many ticks as the evaluation budget requires. Everything else
+	 * is kept current by the events routed to it.
+	 */
 	public void globalRefresh()
 	{
-		itemReporter.refresh();
-		updateAchievementElements(elements);
-		SwingUtilities.invokeLater(panel::refresh);
+		clientThread.invokeLater(() ->
+		{
+			final ClientStateSnapshot state = ClientStateSnapshot.capture(client, itemManager, interestSet.getQuests());
+			actor.execute(() ->
+			{
+				dispatcher.wake(state);
+				slicedEvaluator.submit(dirtyRoots, state);
+				dirtyRoots.clear();
+			});
+		});
 	}
 
-	public void clear()
+	/**
+	 * Re-evaluates every achievement after a login or import. Large trees are evaluated in parallel in one go
+	 * instead of being time sliced.
+	 */
+	public void bulkRefresh()
 	{
-		while (!elements.isEmpty())
+		// Capture everything needed from the client in one go on the client thread, then evaluate off of it
+		clientThread.invokeLater(() ->
 		{
-			remove(elements.get(elements.size() - 1));
-		}
+			final ClientStateSnapshot state = ClientStateSnapshot.capture(client, itemManager, interestSet.getQuests());
+
+			actor.execute(() ->
+			{
+				// Whatever completes now happened while logged out or came with an import, so is not announced
+				bulkRefreshing = true;
+				notifications.setSuppressed(true);
+				dispatcher.wake(state);
+				dirtyRoots.clear();
+
+				if (elementCount < AchievementEvaluator.PARALLEL_THRESHOLD)
+				{
+					slicedEvaluator.submit(elements, state);
+				}
+				else
+				{
+					AchievementEvaluator.evaluate(elements, state, elementCount);
+					endBulkRefresh();
+				}
+			});
+		});
+	}
+
+	private void endBulkRefresh()
+	{
+		// Let cascades through achievement requirements finish while still suppressed
+		dependencyGraph.propagate();
+		bulkRefreshing = false;
+		notifications.setSuppressed(false);
+	}
+
+	/**
+	 * Applies a batch of structural changes on the model thread as a single undoable step, with one pass over
+	 * registration and a single persistence write and panel refresh. The body runs on the model thread.
+	 */
+	public void transaction(Consumer<Transaction> body)
+	{
+		actor.execute(() ->
+		{
+			history.record(ElementSnapshot.of(elements));
+			apply(body);
+		});
+	}
+
+	public void clear()
+	{
+		transaction(Transaction::clear);
 	}
 
 	public void add(AchievementElement element)
 	{
-		elements.add(element);
-		register(element);
-		registerChildren(element);
+		transaction(tx -> tx.add(element));
 	}
 
 	public void add(AchievementElement parent, AchievementElement child)
 	{
-		parent.getChildren().add(child);
-		register(child);
-		registerChildren(child);
+		transaction(tx -> tx.add(parent, child));
 	}
 
 	public void remove(AchievementElement element)
 	{
-		unregister(element);
-		unregisterChildren(element);
-		elements.remove(element);
+		transaction(tx -> tx.remove(element));
 	}
 
 	public void remove(AchievementElement parent, AchievementElement child)
 	{
-		unregister(child);
-		unregisterChildren(child);
-		parent.getChildren().remove(child);
+		transaction(tx -> tx.remove(parent, child));
 	}
 
 	public void set(int index, AchievementElement element)
 	{
-		AchievementElement old = elements.get(index);
-
-		unregister(old);
-		unregisterChildren(old);
-		elements.set(index, element);
-		register(element);
-		registerChildren(element);
+		transaction(tx -> tx.set(index, element));
 	}
 
 	public void set(int index, AchievementElement parent, AchievementElement child)
 	{
-		AchievementElement old = parent.getChildren().get(index);
+		transaction(tx -> tx.set(index, parent, child));
+	}
+
+	/**
+	 * Removes the element with the given id from wherever it is in the tree.
+	 */
+	public void remove(long id)
+	{
+		transaction(tx ->
+		{
+			final AchievementElement element = elementsById.get(id);
 
-		unregister(old);
-		unregisterChildren(old);
-		parent.getChildren().set(index, child);
-		register(child);
-		registerChildren(child);
+			if (element != null)
+			{
+				tx.remove(element.getParent(), element);
+			}
+		});
 	}
 
-	public void register(AchievementElement element)
+	/**
+	 * Replaces the element at the given index of the parent's children, or appends it if the index is past the end.
+	 * A parent id of 0 refers to the root list.
+	 */
+	public void put(int index, long parentId, AchievementElement element)
 	{
-		eventBus.register(element);
-		element.setStateListener(new AchievementElementStateListener(element));
+		transaction(tx ->
+		{
+			if (parentId == 0 || elementsById.containsKey(parentId))
+			{
+				tx.put(index, elementsById.get(parentId), element);
+			}
+		});
 	}
 
-	public void registerChildren(AchievementElement parent)
+	/**
+	 * Moves a child of the given parent from one index to another. A parent id of 0 refers to the root list.
+	 */
+	public void move(long parentId, int from, int to)
 	{
-		for (AchievementElement child : parent.getChildren())
+		transaction(tx ->
 		{
-			registerChildren(child);
-			register(child);
-		}
+			if (parentId == 0 || elementsById.containsKey(parentId))
+			{
+				tx.move(elementsById.get(parentId), from, to);
+			}
+		});
 	}
 
-	public void unregister(AchievementElement element)
+	public void click(long id)
 	{
-		eventBus.unregister(element);
-		element.setStateListener(null);
+		mutate(() ->
+		{
+			final AchievementElement element = elementsById.get(id);
+
+			if (element != null)
+			{
+				materialize(element);
+				element.click();
+				element.refresh();
+			}
+		});
 	}
 
-	public void unregisterChildren(AchievementElement parent)
+	public void reset(long id)
 	{
-		for (AchievementElement child : parent.getChildren())
+		mutate(() ->
 		{
-			unregisterChildren(child);
-			unregister(child);
-		}
+			final AchievementElement element = elementsById.get(id);
+
+			if (element != null)
+			{
+				materialize(element);
+				element.reset();
+				element.invalidate();
+
+				// Brought back in step with its target, as it would be after any change of the target's state
+				if (element instanceof AchievementRequirement)
+				{
+					dependencyGraph.onStateChanged(((AchievementRequirement) element).getAchievementId());
+				}
+			}
+		});
 	}
 
-	public void updateConfig()
+	public void undo()
 	{
-		if (elements.isEmpty())
+		actor.execute(() -> restore(history.undo(ElementSnapshot.of(elements))));
+	}
+
+	public void redo()
+	{
+		actor.execute(() -> restore(history.redo(ElementSnapshot.of(elements))));
+	}
+
+	/**
+	 * Passes an editable copy of the element to the callback on the event dispatch thread.
+	 */
+	public void copy(long id, Consumer<AchievementElement> callback)
+	{
+		actor.execute(() ->
 		{
-			configManager.unsetConfiguration(
-					CustomAchievementsConfig.CONFIG_GROUP,
-					CustomAchievementsConfig.ELEMENTS);
-			return;
-		}
+			final AchievementElement element = elementsById.get(id);
 
-		final String json = serializer.toJson(elements);
+			if (element != null)
+			{
+				materialize(element);
+				final AchievementElement copy = element.editableCopy();
+				SwingUtilities.invokeLater(() -> callback.accept(copy));
+			}
+		});
+	}
 
-		configManager.setConfiguration(
-				CustomAchievementsConfig.CONFIG_GROUP,
-				CustomAchievementsConfig.ELEMENTS,
-				json);
+	/**
+	 * Loads the children of the element if they are still dormant, e.g. once it is expanded.
+	 */
+	public void materialize(long id)
+	{
+		actor.execute(() ->
+		{
+			final AchievementElement element = elementsById.get(id);
+
+			if (element != null)
+			{
+				materialize(element);
+			}
+		});
+	}
+
+	/**
+	 * Serializes every element and passes the result to the callback on the event dispatch thread.
+	 */
+	public void toJson(CustomAchievementsSerializer serializer, Consumer<String> callback)
+	{
+		actor.execute(() ->
+		{
+			final String json = serializer.toJson(elements);
+			SwingUtilities.invokeLater(() -> callback.accept(json));
+		});
+	}
+
+	public void updateConfig()
+	{
+		actor.execute(() -> persistRequested = true);
 	}
 
 	public void loadConfig(String json)
@@ -276,19 +537,32 @@ public class CustomAchievementsPlugin extends Plugin
 			return;
 		}
 
-		List<AchievementElement> loaded = serializer.fromJson(json);
+		// Completed subtrees that are collapsed anyway are only deserialized once they are needed
+		final List<AchievementElement> loaded = serializer.fromJson(json, id -> !viewState.isExpanded(id));
 
 		if (loaded != null)
 		{
-			clear();
+			actor.execute(() -> notifications.setSuppressed(true));
 
-			for (AchievementElement element : loaded)
+			transaction(tx ->
 			{
-				add(element);
-			}
-		}
+				tx.clear();
+
+				for (AchievementElement element : loaded)
+				{
+					tx.add(element);
+				}
+			});
+
+			actor.execute(() ->
+			{
+				dependencyGraph.propagate();
+				notifications.setSuppressed(bulkRefreshing);
 
-		panel.refresh();
+				final StringPool.Stats stats = stringPool.getStats();
+				log.debug("Interned strings: {} lookups, {} duplicates dropped", stats.getLookups(), stats.getDeduplicated());
+			});
+		}
 	}
 
 	public void sendCompletionMessage(String message)
@@ -304,27 +578,45 @@ public class CustomAchievementsPlugin extends Plugin
 
 	public Achievement createAchievement(String name)
 	{
-		return new Achievement(name);
+		final Achievement achievement = new Achievement(name);
+		assignId(achievement);
+		return achievement;
 	}
 
 	public Requirement createRequirement(RequirementType type)
 	{
+		final Requirement requirement;
+
 		switch (type)
 		{
 			case SKILL:
-				return new SkillRequirement(Skill.ATTACK, SkillTargetType.LEVEL, 1);
+				requirement = new SkillRequirement(Skill.ATTACK, SkillTargetType.LEVEL, 1);
+				break;
 			case ITEM:
-				return new ItemRequirement("", 1);
+				requirement = new ItemRequirement("", 1);
+				break;
 			case SLAY:
-				return new SlayRequirement("", false, 1);
+				requirement = new SlayRequirement("", false, 1);
+				break;
 			case QUEST:
-				return new QuestRequirement(Quest.COOKS_ASSISTANT);
+				requirement = new QuestRequirement(Quest.COOKS_ASSISTANT);
+				break;
 			case CHUNK:
-				return new ChunkRequirement(0, "");
+				requirement = new ChunkRequirement(0, "");
+				break;
+			case GROUP:
+				requirement = new GroupRequirement(GroupOperator.ALL, 1);
+				break;
+			case ACHIEVEMENT:
+				requirement = new AchievementRequirement(0, "");
+				break;
 			case ABSTRACT:
 			default:
-				return new AbstractRequirement("");
+				requirement = new AbstractRequirement("");
 		}
+
+		assignId(requirement);
+		return requirement;
 	}
 
 	@Override
@@ -335,7 +627,10 @@ public class CustomAchievementsPlugin extends Plugin
 				CustomAchievementsConfig.CONFIG_GROUP,
 				CustomAchievementsConfig.ELEMENTS);
 
-		panel = new CustomAchievementsPanel(this, config);
+		viewState.load();
+		stopping = false;
+		notifications = new NotificationPipeline(config, this::sendCompletionMessage);
+		panel = new CustomAchievementsPanel(this, config, viewState);
 
 		navigationButton = NavigationButton.builder()
 				.tooltip("Custom Achievements")
@@ -344,24 +639,42 @@ public class CustomAchievementsPlugin extends Plugin
 				.build();
 
 		clientToolbar.addNavigation(navigationButton);
+
+		actor.start();
 		loadConfig(configJson);
+		actor.execute(history::clear);
 
 		eventBus.register(itemReporter);
 		eventBus.register(npcKillReporter);
 		eventBus.register(questStateReporter);
 		eventBus.register(chunkEnteredReporter);
+		eventBus.register(reporterScheduler);
 	}
 
 	@Override
 	protected void shutDown()
 	{
+		eventBus.unregister(reporterScheduler);
 		eventBus.unregister(itemReporter);
 		eventBus.unregister(npcKillReporter);
 		eventBus.unregister(questStateReporter);
 		eventBus.unregister(chunkEnteredReporter);
 
-		updateConfig();
-		clear();
+		actor.execute(() ->
+		{
+			// Saved once here and never again, as the model is torn down rather than cleared by the user
+			dispatcher.settle();
+			persist();
+			stopping = true;
+			clearElements();
+			history.clear();
+		});
+		actor.stop();
+		notifications.clear();
+
+		snapshot = ImmutableList.of();
+		statistics = AchievementStatistics.Statistics.EMPTY;
+		viewState.save();
 		clientToolbar.removeNavigation(navigationButton);
 	}
 
@@ -373,19 +686,453 @@ public class CustomAchievementsPlugin extends Plugin
 		return ticksElapsed > 4;
 	}
 
-	private void updateAchievementElements(List<AchievementElement> list)
+	/**
+	 * Queues an undoable change to the model that should be persisted and shown once applied.
+	 */
+	private void mutate(Runnable mutation)
+	{
+		actor.execute(() -> history.record(ElementSnapshot.of(elements)));
+		update(mutation);
+	}
+
+	/**
+	 * Queues a change to the model that should be persisted and shown once applied, but not undone. The change must
+	 * not be structural or edit references, those go through {@link #apply}, and state changes it makes reach the
+	 * dependency graph through the state listeners.
+	 */
+	private void update(Runnable mutation)
 	{
-		for (AchievementElement element : list)
+		actor.execute(() ->
 		{
-			updateAchievementElements(element.getChildren());
+			mutation.run();
+			persistRequested = true;
+			snapshotRequested = true;
+		});
+	}
 
-			if (element instanceof Requirement)
+	private void restore(ImmutableList<ElementSnapshot> version)
+	{
+		if (version == null)
+		{
+			return;
+		}
+
+		apply(tx ->
+		{
+			final Map<AchievementElement, List<AchievementElement>> targets = new IdentityHashMap<>();
+			final List<AchievementElement> roots = new ArrayList<>(version.size());
+
+			for (ElementSnapshot root : version)
 			{
-				((Requirement) element).forceUpdate(client);
+				roots.add(restore(root, targets));
 			}
 
-			element.refresh();
+			// Everything is removed before anything is added, so that elements moving between parents end up attached
+			removeAllExcept(tx, null, roots);
+			targets.forEach((parent, children) -> removeAllExcept(tx, parent, children));
+
+			reorder(tx, null, roots);
+			targets.forEach((parent, children) -> reorder(tx, parent, children));
+		});
+
+		// Versions recorded while a subtree was dormant bring it back dormant, even if it has been expanded since
+		for (AchievementElement element : new ArrayList<>(elements))
+		{
+			if (element.isDormant() && viewState.isExpanded(element.getId()))
+			{
+				materialize(element);
+			}
 		}
+
+		// Restored copies are re-evaluated against the client state
+		globalRefresh();
+	}
+
+	/**
+	 * Returns the element to put in place of the snapshot. Live elements the version was taken of have not been edited
+	 * since and are kept along with their progress, with the children they should have recorded in the targets.
+	 * Anything else is copied from the version, carrying over the progress the client cannot tell again.
+	 */
+	private AchievementElement restore(ElementSnapshot snapshot, Map<AchievementElement, List<AchievementElement>> targets)
+	{
+		final AchievementElement live = elementsById.get(snapshot.getId());
+
+		if (live != null && live == snapshot.getSource())
+		{
+			// Unchanged subtree
+			if (live.getSnapshot() == snapshot)
+			{
+				return live;
+			}
+
+			if (live.getResets() != snapshot.getCopy().getResets())
+			{
+				// Reset or un-reset since, which is the only way progress goes back to what the version recorded
+				restoreProgress(live, snapshot.getCopy());
+				live.refresh();
+			}
+			else if (live.isForceComplete() != snapshot.isForceComplete())
+			{
+				live.setForceComplete(snapshot.isForceComplete());
+				live.refresh();
+			}
+
+			final List<AchievementElement> children = new ArrayList<>(snapshot.getChildren().size());
+
+			for (ElementSnapshot child : snapshot.getChildren())
+			{
+				children.add(restore(child, targets));
+			}
+
+			targets.put(live, children);
+			return live;
+		}
+
+		final AchievementElement restored = snapshot.materializeNode();
+
+		if (live != null)
+		{
+			carryProgress(live, restored);
+		}
+
+		for (ElementSnapshot child : snapshot.getChildren())
+		{
+			restored.addChild(restore(child, targets));
+		}
+
+		return restored;
+	}
+
+	private void removeAllExcept(Transaction tx, AchievementElement parent, List<AchievementElement> children)
+	{
+		final Set<AchievementElement> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+		kept.addAll(children);
+
+		for (AchievementElement child : new ArrayList<>(parent == null ? elements : parent.getChildren()))
+		{
+			if (!kept.contains(child))
+			{
+				tx.remove(parent, child);
+			}
+		}
+	}
+
+	private void reorder(Transaction tx, AchievementElement parent, List<AchievementElement> children)
+	{
+		final List<AchievementElement> current = parent == null ? elements : parent.getChildren();
+
+		for (int i = 0; i < children.size(); i++)
+		{
+			final AchievementElement child = children.get(i);
+
+			if (i < current.size() && current.get(i) == child)
+			{
+				continue;
+			}
+
+			int index = indexOf(current, child);
+
+			if (index < 0)
+			{
+				tx.add(parent, child);
+				index = current.size() - 1;
+			}
+
+			tx.move(parent, index, i);
+		}
+	}
+
+	private static int indexOf(List<AchievementElement> elements, AchievementElement element)
+	{
+		for (int i = 0; i < elements.size(); i++)
+		{
+			if (elements.get(i) == element)
+			{
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Writes the progress recorded in the copy back to the live element, for undoing and redoing a reset.
+	 */
+	private static void restoreProgress(AchievementElement live, AchievementElement recorded)
+	{
+		live.setResets(recorded.getResets());
+		live.setForceComplete(recorded.isForceComplete());
+
+		if (live instanceof Requirement)
+		{
+			((Requirement) live).setProgress(((Requirement) recorded).getProgress());
+		}
+
+		if (live instanceof CountedRequirement)
+		{
+			((CountedRequirement) live).setCount(((CountedRequirement) recorded).getCount());
+		}
+
+		live.invalidate();
+	}
+
+	/**
+	 * Counts and visited chunks cannot be read back from the client, so they are kept from the live element if the
+	 * restored one tracks the same thing.
+	 */
+	private static void carryProgress(AchievementElement live, AchievementElement restored)
+	{
+		if (live.getClass() != restored.getClass())
+		{
+			return;
+		}
+
+		if (live instanceof ItemRequirement)
+		{
+			final ItemRequirement from = (ItemRequirement) live;
+			final ItemRequirement to = (ItemRequirement) restored;
+
+			if (from.getName().equalsIgnoreCase(to.getName()) && from.getTrackingOption() == to.getTrackingOption())
+			{
+				to.setCount(from.getCount());
+			}
+		}
+		else if (live instanceof SlayRequirement)
+		{
+			final SlayRequirement from = (SlayRequirement) live;
+			final SlayRequirement to = (SlayRequirement) restored;
+
+			if (from.getName().equalsIgnoreCase(to.getName()))
+			{
+				to.setCount(from.getCount());
+			}
+		}
+		else if (live instanceof ChunkRequirement)
+		{
+			final ChunkRequirement from = (ChunkRequirement) live;
+
+			if (from.getRegionId() == ((ChunkRequirement) restored).getRegionId() && from.getProgress() == AchievementState.COMPLETE)
+			{
+				((ChunkRequirement) restored).setProgress(AchievementState.COMPLETE);
+			}
+		}
+	}
+
+	/**
+	 * Deserializes and registers the dormant children of the element, if any. This is not an undoable change, earlier
+	 * versions keep the dormant subtree and restoring one simply makes it dormant again.
+	 */
+	private void materialize(AchievementElement element)
+	{
+		final DormantSubtree dormant = element.getDormant();
+
+		if (dormant == null)
+		{
+			return;
+		}
+
+		final List<AchievementElement> children = serializer.fromJson(dormant.getChildren());
+
+		if (children == null)
+		{
+			return;
+		}
+
+		// Re-register the element so that everything counted from its summary is counted from the children instead
+		unregister(element);
+		element.setDormant(null);
+		element.invalidate();
+		register(element);
+
+		apply(tx ->
+		{
+			for (AchievementElement child : children)
+			{
+				tx.add(element, child);
+			}
+		});
+	}
+
+	private void apply(Consumer<Transaction> body)
+	{
+		// Every structural change goes through here, so this is where a command leaking off the model thread shows
+		Preconditions.checkState(actor.isModelThread(), "Achievement model changed off the model thread");
+
+		final Transaction transaction = new Transaction(elements);
+		body.accept(transaction);
+		final List<Long> removedIds = commit(transaction);
+
+		// Ids that were not added back, e.g. by an edit replacing an element, are gone for good
+		removedIds.removeIf(elementsById::containsKey);
+
+		if (!removedIds.isEmpty())
+		{
+			SwingUtilities.invokeLater(() -> viewState.forget(removedIds));
+		}
+
+		// Moves change which requirements lie beneath which references
+		dependencyGraph.invalidate();
+		persistRequested = true;
+		snapshotRequested = true;
+	}
+
+	/**
+	 * Unregisters every element without requesting a persist or a new snapshot, for shutdown.
+	 */
+	private void clearElements()
+	{
+		final Transaction transaction = new Transaction(elements);
+		transaction.clear();
+		commit(transaction);
+	}
+
+	/**
+	 * Commits the transaction, registering and unregistering elements as needed, and returns the unregistered ids.
+	 */
+	private List<Long> commit(Transaction transaction)
+	{
+		final List<Long> removedIds = new ArrayList<>();
+
+		transaction.commit(
+				element ->
+				{
+					dirtyRoots.remove(element);
+					removedIds.add(element.getId());
+
+					if (element.isRegistered())
+					{
+						unregister(element);
+					}
+				},
+				element ->
+				{
+					if (!element.isRegistered())
+					{
+						register(element);
+						dirtyRoots.add(rootOf(element));
+					}
+				});
+
+		interestSet.publishRegions();
+		return removedIds;
+	}
+
+	private void register(AchievementElement element)
+	{
+		// Imported or hand-edited configs may lack ids or contain duplicates
+		if (element.getId() == 0 || elementsById.containsKey(element.getId()))
+		{
+			assignId(element);
+		}
+
+		elementsById.put(element.getId(), element);
+
+		// Covers both freshly deserialized and edited elements, as both enter the tree through here
+		element.intern(stringPool);
+
+		if (Boolean.FALSE.equals(element.takeLegacyExpanded()))
+		{
+			final long id = element.getId();
+			SwingUtilities.invokeLater(() -> viewState.setExpanded(id, false));
+		}
+
+		dispatcher.add(element);
+		dependencyGraph.add(element);
+		statisticsCounters.add(element);
+		interestSet.add(element);
+		elementCount++;
+		element.setStateListener(new AchievementElementStateListener(element));
+	}
+
+	private void unregister(AchievementElement element)
+	{
+		elementsById.remove(element.getId(), element);
+		dispatcher.remove(element);
+		dependencyGraph.remove(element);
+		statisticsCounters.remove(element);
+		interestSet.remove(element);
+		elementCount--;
+		element.setStateListener(null);
+	}
+
+	private static AchievementElement rootOf(AchievementElement element)
+	{
+		while (element.getParent() != null)
+		{
+			element = element.getParent();
+		}
+
+		return element;
+	}
+
+	private static void assignId(AchievementElement element)
+	{
+		long id;
+
+		// 0 is reserved for "no element", e.g. the parent of root achievements
+		do
+		{
+			id = ThreadLocalRandom.current().nextLong();
+		}
+		while (id == 0);
+
+		element.setId(id);
+	}
+
+	/**
+	 * Runs on the model thread after every batch of commands.
+	 */
+	private void flush()
+	{
+		// Counts from this batch's kills and drops complete requirements, so they go before the cascades
+		dispatcher.settle();
+
+		// Then, as cascading completions change more state
+		dependencyGraph.propagate();
+
+		if (stateChanged)
+		{
+			stateChanged = false;
+			persistRequested = true;
+			snapshotRequested = true;
+		}
+
+		if (persistRequested)
+		{
+			persistRequested = false;
+			persist();
+		}
+
+		if (snapshotRequested)
+		{
+			snapshotRequested = false;
+			snapshot = ElementSnapshot.of(elements);
+			statistics = statisticsCounters.getStatistics();
+			SwingUtilities.invokeLater(panel::refresh);
+		}
+	}
+
+	private void persist()
+	{
+		if (stopping)
+		{
+			return;
+		}
+
+		if (elements.isEmpty())
+		{
+			configManager.unsetConfiguration(
+					CustomAchievementsConfig.CONFIG_GROUP,
+					CustomAchievementsConfig.ELEMENTS);
+			return;
+		}
+
+		final String json = serializer.toJson(elements);
+
+		configManager.setConfiguration(
+				CustomAchievementsConfig.CONFIG_GROUP,
+				CustomAchievementsConfig.ELEMENTS,
+				json);
 	}
 
 	@AllArgsConstructor
@@ -394,15 +1141,17 @@ public class CustomAchievementsPlugin extends Plugin
 		private final AchievementElement element;
 
 		@Override
-		public void onStateChanged(AchievementState status)
+		public void onStateChanged(AchievementState previous, AchievementState status)
 		{
-			if (status == AchievementState.COMPLETE && !element.isForceComplete())
+			// May be called from fork/join workers during a bulk evaluation, so only record the change here
+			if (status == AchievementState.COMPLETE && previous != status && !element.isForceComplete())
 			{
-				sendCompletionMessage(element.completionChatMessage(config));
+				notifications.onCompleted(element);
 			}
 
-			updateConfig();
-			SwingUtilities.invokeLater(panel::refresh);
+			statisticsCounters.onStateChanged(element, previous, status);
+			stateChanged = true;
+			dependencyGraph.onStateChanged(element.getId());
 		}
 	}
 }
@@ -26,26 +26,35 @@
 package com.customachievements;
 
 import com.customachievements.requirements.AbstractRequirement;
+import com.customachievements.requirements.AchievementRequirement;
 import com.customachievements.requirements.ChunkRequirement;
+import com.customachievements.requirements.GroupRequirement;
 import com.customachievements.requirements.ItemRequirement;
 import com.customachievements.requirements.QuestRequirement;
 import com.customachievements.requirements.Requirement;
 import com.customachievements.requirements.RequirementType;
 import com.customachievements.requirements.SkillRequirement;
 import com.customachievements.requirements.SlayRequirement;
+import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
 import com.google.gson.reflect.TypeToken;
 import lombok.extern.slf4j.Slf4j;
 
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongPredicate;
 
 @Slf4j
 public class CustomAchievementsSerializer
@@ -69,7 +78,8 @@ public class CustomAchievementsSerializer
 
 	public String toJson(List<AchievementElement> entries)
 	{
-		return builder.create().toJson(entries);
+		// With the declared element type, so that roots go through the type adapter as well
+		return builder.create().toJson(entries, listType);
 	}
 
 	public List<AchievementElement> fromJson(String json)
@@ -85,49 +95,181 @@ public class CustomAchievementsSerializer
 		}
 	}
 
+	public List<AchievementElement> fromJson(JsonElement json)
+	{
+		try
+		{
+			return builder.create().fromJson(json, listType);
+		}
+		catch (JsonParseException e)
+		{
+			log.error(e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Like fromJson(String), but leaves the children of collapsed root achievements serialized if the whole subtree
+	 * is complete, see DormantSubtree.
+	 */
+	public List<AchievementElement> fromJson(String json, LongPredicate collapsed)
+	{
+		try
+		{
+			final Gson gson = builder.create();
+			final JsonElement tree = new JsonParser().parse(json);
+
+			if (!tree.isJsonArray())
+			{
+				return gson.fromJson(tree, listType);
+			}
+
+			final JsonArray roots = tree.getAsJsonArray();
+			final Set<Long> referencedIds = DormantSubtree.collectReferences(roots);
+			final List<AchievementElement> elements = new ArrayList<>(roots.size());
+
+			for (JsonElement root : roots)
+			{
+				final DormantSubtree dormant = isCollapsedAchievement(root, collapsed) ?
+						DormantSubtree.of(root.getAsJsonObject(), referencedIds) :
+						null;
+
+				if (dormant == null)
+				{
+					elements.add(gson.fromJson(root, AchievementElement.class));
+					continue;
+				}
+
+				final JsonObject shallow = new JsonObject();
+
+				for (Map.Entry<String, JsonElement> entry : root.getAsJsonObject().entrySet())
+				{
+					if (!entry.getKey().equals("children"))
+					{
+						shallow.add(entry.getKey(), entry.getValue());
+					}
+				}
+
+				final AchievementElement element = gson.fromJson(shallow, AchievementElement.class);
+				element.setDormant(dormant);
+				elements.add(element);
+			}
+
+			return elements;
+		}
+		catch (JsonParseException | IllegalStateException e)
+		{
+			log.error(e.getMessage());
+			return null;
+		}
+	}
+
+	private static boolean isCollapsedAchievement(JsonElement root, LongPredicate collapsed)
+	{
+		if (!root.isJsonObject() || root.getAsJsonObject().has("type"))
+		{
+			return false;
+		}
+
+		final JsonObject object = root.getAsJsonObject();
+		final JsonElement id = object.get("id");
+		final JsonElement uiExpanded = object.get("uiExpanded");
+
+		return (id != null && id.isJsonPrimitive() && collapsed.test(id.getAsLong())) ||
+				(uiExpanded != null && uiExpanded.isJsonPrimitive() && !uiExpanded.getAsBoolean());
+	}
+
 	private static class AchievementElementTypeAdapter implements JsonSerializer<AchievementElement>, JsonDeserializer<AchievementElement>
 	{
 		@Override
 		public JsonElement serialize(AchievementElement src, Type typeOfSrc, JsonSerializationContext context)
 		{
-			return context.serialize(src);
+			final JsonObject jsonObject = context.serialize(src).getAsJsonObject();
+
+			// Packed fields are transient, write them out under their original names
+			jsonObject.add("state", context.serialize(src.getState()));
+			jsonObject.addProperty("forceComplete", src.isForceComplete());
+
+			if (src instanceof Requirement)
+			{
+				final Requirement requirement = (Requirement) src;
+				jsonObject.add("type", context.serialize(requirement.getType()));
+				jsonObject.add("progress", context.serialize(requirement.getProgress()));
+			}
+
+			// Written back exactly as they were read
+			if (src.isDormant())
+			{
+				jsonObject.add("children", src.getDormant().getChildren());
+			}
+
+			return jsonObject;
 		}
 
 		@Override
 		public AchievementElement deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException
 		{
 			final JsonObject jsonObject = json.getAsJsonObject();
+			final AchievementElement element;
 
 			if (jsonObject.get("type") != null)
 			{
-				return deserializeRequirement(json, context);
+				element = deserializeRequirement(json, context);
 			}
 			else
 			{
-				return context.deserialize(json, Achievement.class);
+				element = context.deserialize(json, Achievement.class);
 			}
+
+			final AchievementState state = context.deserialize(jsonObject.get("state"), AchievementState.class);
+			element.setState(state != null ? state : AchievementState.INCOMPLETE);
+
+			final JsonElement forceComplete = jsonObject.get("forceComplete");
+			element.setForceComplete(forceComplete != null && forceComplete.getAsBoolean());
+
+			element.compact();
+			return element;
 		}
 
 		private Requirement deserializeRequirement(JsonElement json, JsonDeserializationContext context) throws JsonParseException
 		{
-			RequirementType type = context.deserialize(json.getAsJsonObject().get("type"), RequirementType.class);
+			final JsonObject jsonObject = json.getAsJsonObject();
+			final RequirementType type = context.deserialize(jsonObject.get("type"), RequirementType.class);
+			final Requirement requirement;
 
 			switch (type)
 			{
 				case SKILL:
-					return context.deserialize(json, SkillRequirement.class);
+					requirement = context.deserialize(json, SkillRequirement.class);
+					break;
 				case ITEM:
-					return context.deserialize(json, ItemRequirement.class);
+					requirement = context.deserialize(json, ItemRequirement.class);
+					break;
 				case SLAY:
-					return context.deserialize(json, SlayRequirement.class);
+					requirement = context.deserialize(json, SlayRequirement.class);
+					break;
 				case QUEST:
-					return context.deserialize(json, QuestRequirement.class);
+					requirement = context.deserialize(json, QuestRequirement.class);
+					break;
 				case CHUNK:
-					return context.deserialize(json, ChunkRequirement.class);
+					requirement = context.deserialize(json, ChunkRequirement.class);
+					break;
+				case GROUP:
+					requirement = context.deserialize(json, GroupRequirement.class);
+					break;
+				case ACHIEVEMENT:
+					requirement = context.deserialize(json, AchievementRequirement.class);
+					break;
 				case ABSTRACT:
 				default:
-					return context.deserialize(json, AbstractRequirement.class);
+					requirement = context.deserialize(json, AbstractRequirement.class);
+					break;
 			}
+
+			final AchievementState progress = context.deserialize(jsonObject.get("progress"), AchievementState.class);
+			requirement.setType(type);
+			requirement.setProgress(progress != null ? progress : AchievementState.INCOMPLETE);
+			return requirement;
 		}
 	}
 }
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import com.customachievements.requirements.AchievementRequirement;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static com.customachievements.AchievementState.INCOMPLETE;
+
+/**
+ * Tracks which achievement requirements reference which elements and keeps them in step with their targets.
+ * Every requirement is ranked by the longest chain of references beneath it, so processing changes in rank order
+ * lets a completion cascade through all of its dependents in a single pass. References that would complete
+ * themselves are detected as cycles and held incomplete. Confined to the model thread, except for
+ * {@link #onStateChanged(long)}.
+ */
+@Slf4j
+class DependencyGraph
+{
+	private final Map<Long, AchievementElement> elementsById;
+
+	// Referenced element id -> requirements referencing it
+	private final Map<Long, Set<AchievementRequirement>> dependents = new HashMap<>();
+	private final Map<AchievementRequirement, Integer> ranks = new HashMap<>();
+	private final Set<AchievementRequirement> cyclic = new HashSet<>();
+
+	// Ids of referenced elements that changed state, which may be reported from fork/join workers
+	private final Queue<Long> changed = new ConcurrentLinkedQueue<>();
+	private volatile ImmutableSet<Long> referenced = ImmutableSet.of();
+
+	// Set when references or the tree structure changed, ranks are then recomputed and every requirement resynced
+	private boolean dirty = false;
+
+	DependencyGraph(Map<Long, AchievementElement> elementsById)
+	{
+		this.elementsById = elementsById;
+	}
+
+	void add(AchievementElement element)
+	{
+		if (element instanceof AchievementRequirement)
+		{
+			final AchievementRequirement requirement = (AchievementRequirement) element;
+			dependents.computeIfAbsent(requirement.getAchievementId(), id -> new LinkedHashSet<>()).add(requirement);
+			dirty = true;
+		}
+	}
+
+	void remove(AchievementElement element)
+	{
+		if (element instanceof AchievementRequirement)
+		{
+			final AchievementRequirement requirement = (AchievementRequirement) element;
+			final Set<AchievementRequirement> set = dependents.get(requirement.getAchievementId());
+
+			if (set != null && set.remove(requirement) && set.isEmpty())
+			{
+				dependents.remove(requirement.getAchievementId());
+			}
+
+			dirty = true;
+		}
+	}
+
+	void invalidate()
+	{
+		if (!dependents.isEmpty())
+		{
+			dirty = true;
+		}
+	}
+
+	void onStateChanged(long id)
+	{
+		if (referenced.contains(id))
+		{
+			changed.add(id);
+		}
+	}
+
+	/**
+	 * Brings every requirement whose target changed up to date, in rank order.
+	 */
+	void propagate()
+	{
+		final PriorityQueue<AchievementRequirement> pending = new PriorityQueue<>(
+				Comparator.comparingInt(requirement -> ranks.getOrDefault(requirement, 0)));
+		final Set<AchievementRequirement> queued = new HashSet<>();
+
+		if (dirty)
+		{
+			rank();
+			changed.clear();
+
+			for (Set<AchievementRequirement> set : dependents.values())
+			{
+				for (AchievementRequirement requirement : set)
+				{
+					enqueue(requirement, pending, queued);
+				}
+			}
+		}
+
+		drainChanged(pending, queued);
+
+		while (!pending.isEmpty())
+		{
+			final AchievementRequirement requirement = pending.poll();
+			queued.remove(requirement);
+
+			final AchievementElement target = elementsById.get(requirement.getAchievementId());
+
+			if (target == null || cyclic.contains(requirement))
+			{
+				requirement.onDependencyChanged(INCOMPLETE, target != null ? target.toString() : null);
+			}
+			else
+			{
+				requirement.onDependencyChanged(target.getState(), target.toString());
+			}
+
+			// Changes caused by this requirement only reach requirements of a higher rank
+			drainChanged(pending, queued);
+		}
+	}
+
+	/**
+	 * Collects the ids of every element in a published snapshot that depends on any of the given elements, through
+	 * containment or references, including the given ones. None of these can be referenced by the given elements
+	 * without creating a cycle.
+	 */
+	static Set<Long> collectDependents(List<ElementSnapshot> roots, Set<Long> ids)
+	{
+		final Map<Long, Long> parents = new HashMap<>();
+		final Map<Long, List<Long>> referencedBy = new HashMap<>();
+		final Deque<ElementSnapshot> stack = new ArrayDeque<>(roots);
+
+		while (!stack.isEmpty())
+		{
+			final ElementSnapshot snapshot = stack.pop();
+
+			for (ElementSnapshot child : snapshot.getChildren())
+			{
+				parents.put(child.getId(), snapshot.getId());
+				stack.push(child);
+			}
+
+			if (snapshot.getDependencyId() != 0)
+			{
+				referencedBy.computeIfAbsent(snapshot.getDependencyId(), id -> new ArrayList<>()).add(snapshot.getId());
+			}
+		}
+
+		final Set<Long> dependents = new HashSet<>();
+		final Deque<Long> pending = new ArrayDeque<>(ids);
+
+		while (!pending.isEmpty())
+		{
+			final Long id = pending.pop();
+
+			if (dependents.add(id))
+			{
+				if (parents.containsKey(id))
+				{
+					pending.push(parents.get(id));
+				}
+
+				pending.addAll(referencedBy.getOrDefault(id, ImmutableList.of()));
+			}
+		}
+
+		return dependents;
+	}
+
+	private void drainChanged(PriorityQueue<AchievementRequirement> pending, Set<AchievementRequirement> queued)
+	{
+		Long id;
+
+		while ((id = changed.poll()) != null)
+		{
+			for (AchievementRequirement requirement : dependents.getOrDefault(id, Collections.emptySet()))
+			{
+				enqueue(requirement, pending, queued);
+			}
+		}
+	}
+
+	private static void enqueue(
+			AchievementRequirement requirement,
+			PriorityQueue<AchievementRequirement> pending,
+			Set<AchievementRequirement> queued)
+	{
+		if (queued.add(requirement))
+		{
+			pending.add(requirement);
+		}
+	}
+
+	/**
+	 * A requirement's rank is one more than the highest rank among the requirements inside the subtree of its target,
+	 * since the target can only change after those have. Only the ancestors of each requirement are visited, so this
+	 * is independent of the overall tree size.
+	 */
+	private void rank()
+	{
+		final Map<Long, List<AchievementRequirement>> contained = new HashMap<>();
+
+		for (Set<AchievementRequirement> set : dependents.values())
+		{
+			for (AchievementRequirement requirement : set)
+			{
+				final AchievementElement element = requirement;
+
+				for (AchievementElement ancestor = element.getParent(); ancestor != null; ancestor = ancestor.getParent())
+				{
+					contained.computeIfAbsent(ancestor.getId(), id -> new ArrayList<>()).add(requirement);
+				}
+			}
+		}
+
+		ranks.clear();
+		cyclic.clear();
+
+		final Set<AchievementRequirement> visiting = new HashSet<>();
+
+		for (Set<AchievementRequirement> set : dependents.values())
+		{
+			for (AchievementRequirement requirement : set)
+			{
+				rank(requirement, contained, visiting);
+			}
+		}
+
+		if (!cyclic.isEmpty())
+		{
+			log.warn("{} achievement requirements form a dependency cycle and will not complete", cyclic.size());
+		}
+
+		referenced = ImmutableSet.copyOf(dependents.keySet());
+		dirty = false;
+	}
+
+	private int rank(
+			AchievementRequirement requirement,
+			Map<Long, List<AchievementRequirement>> contained,
+			Set<AchievementRequirement> visiting)
+	{
+		final Integer known = ranks.get(requirement);
+
+		if (known != null)
+		{
+			return known;
+		}
+
+		if (!visiting.add(requirement))
+		{
+			cyclic.add(requirement);
+			return 0;
+		}
+
+		int rank = 0;
+
+		for (AchievementRequirement inner : contained.getOrDefault(requirement.getAchievementId(), ImmutableList.of()))
+		{
+			rank = Math.max(rank, rank(inner, contained, visiting) + 1);
+		}
+
+		visiting.remove(requirement);
+		ranks.put(requirement, rank);
+		return rank;
+	}
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import com.customachievements.requirements.RequirementType;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.runelite.api.Quest;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Children of a collapsed, completed root achievement, kept in their serialized form until they are expanded, edited
+ * or an event may change them. Carries what the rest of the model needs to know about them in the meantime.
+ * The array is shared between copies of the root and must not be modified.
+ */
+@Getter
+@AllArgsConstructor
+class DormantSubtree
+{
+	private static final String COMPLETE = AchievementState.COMPLETE.name();
+
+	private final JsonArray children;
+
+	// Every element in the subtree is complete, so counts suffice for the statistics
+	private final int achievements;
+	private final ImmutableMap<RequirementType, Integer> requirements;
+
+	// The only requirements whose completion can be undone by the client
+	private final ImmutableSet<Quest> quests;
+
+	/**
+	 * Returns the ids of every element referenced by an achievement requirement in the serialized trees.
+	 */
+	static Set<Long> collectReferences(JsonArray elements)
+	{
+		final Set<Long> ids = new HashSet<>();
+		collectReferences(elements, ids);
+		return ids;
+	}
+
+	/**
+	 * Returns the children of the serialized root achievement as a dormant subtree, or null if the root or any of its
+	 * descendants is not complete by its own right, depends on other elements or is referenced by one.
+	 */
+	static DormantSubtree of(JsonObject root, Set<Long> referencedIds)
+	{
+		final JsonElement children = root.get("children");
+
+		if (!isComplete(root) || children == null || !children.isJsonArray() || children.getAsJsonArray().size() == 0)
+		{
+			return null;
+		}
+
+		final Counts counts = new Counts();
+
+		for (JsonElement child : children.getAsJsonArray())
+		{
+			if (!counts.add(child, referencedIds))
+			{
+				return null;
+			}
+		}
+
+		return new DormantSubtree(
+				children.getAsJsonArray(),
+				counts.achievements,
+				ImmutableMap.copyOf(counts.requirements),
+				counts.quests.isEmpty() ? ImmutableSet.of() : ImmutableSet.copyOf(counts.quests));
+	}
+
+	private static void collectReferences(JsonArray elements, Set<Long> ids)
+	{
+		for (JsonElement element : elements)
+		{
+			if (!element.isJsonObject())
+			{
+				continue;
+			}
+
+			final JsonObject object = element.getAsJsonObject();
+
+			if (isString(object.get("type"), RequirementType.ACHIEVEMENT.name()) && isNumber(object.get("achievementId")))
+			{
+				ids.add(object.get("achievementId").getAsLong());
+			}
+
+			final JsonElement children = object.get("children");
+
+			if (children != null && children.isJsonArray())
+			{
+				collectReferences(children.getAsJsonArray(), ids);
+			}
+		}
+	}
+
+	private static boolean isComplete(JsonObject object)
+	{
+		final JsonElement forceComplete = object.get("forceComplete");
+
+		return isString(object.get("state"), COMPLETE) &&
+				(forceComplete == null || !forceComplete.isJsonPrimitive() || !forceComplete.getAsBoolean());
+	}
+
+	private static boolean isString(JsonElement element, String value)
+	{
+		return element != null && element.isJsonPrimitive() && element.getAsJsonPrimitive().isString() &&
+				element.getAsString().equals(value);
+	}
+
+	private static boolean isNumber(JsonElement element)
+	{
+		return element != null && element.isJsonPrimitive() && element.getAsJsonPrimitive().isNumber();
+	}
+
+	private static class Counts
+	{
+		private int achievements = 0;
+		private final Map<RequirementType, Integer> requirements = new EnumMap<>(RequirementType.class);
+		private final Set<Quest> quests = EnumSet.noneOf(Quest.class);
+
+		boolean add(JsonElement element, Set<Long> referencedIds)
+		{
+			if (!element.isJsonObject())
+			{
+				return false;
+			}
+
+			final JsonObject object = element.getAsJsonObject();
+			final JsonElement id = object.get("id");
+			final JsonElement type = object.get("type");
+
+			if (!isComplete(object) || (isNumber(id) && referencedIds.contains(id.getAsLong())))
+			{
+				return false;
+			}
+
+			if (type == null)
+			{
+				achievements++;
+			}
+			else if (!add(object, type))
+			{
+				return false;
+			}
+
+			final JsonElement children = object.get("children");
+
+			if (children != null && children.isJsonArray())
+			{
+				for (JsonElement child : children.getAsJsonArray())
+				{
+					if (!add(child, referencedIds))
+					{
+						return false;
+					}
+				}
+			}
+
+			return true;
+		}
+
+		private boolean add(JsonObject requirement, JsonElement type)
+		{
+			final RequirementType requirementType = valueOf(RequirementType.class, type);
+
+			// Achievement requirements follow other elements, so their state may change without an event
+			if (requirementType == null || requirementType == RequirementType.ACHIEVEMENT)
+			{
+				return false;
+			}
+
+			if (requirementType == RequirementType.QUEST)
+			{
+				final Quest quest = valueOf(Quest.class, requirement.get("quest"));
+
+				if (quest == null)
+				{
+					return false;
+				}
+
+				quests.add(quest);
+			}
+
+			requirements.merge(requirementType, 1, Integer::sum);
+			return true;
+		}
+
+		private static <E extends Enum<E>> E valueOf(Class<E> type, JsonElement element)
+		{
+			if (element == null || !element.isJsonPrimitive() || !element.getAsJsonPrimitive().isString())
+			{
+				return null;
+			}
+
+			try
+			{
+				return Enum.valueOf(type, element.getAsString());
+			}
+			catch (IllegalArgumentException e)
+			{
+				return null;
+			}
+		}
+	}
+}
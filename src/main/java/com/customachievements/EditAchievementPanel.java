@@ -40,7 +40,9 @@ import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import javax.swing.BorderFactory;
 import javax.swing.DefaultListCellRenderer;
 import javax.swing.ImageIcon;
@@ -54,7 +56,10 @@ import javax.swing.JSpinner;
 import javax.swing.SpinnerNumberModel;
 
 import com.customachievements.requirements.AbstractRequirement;
+import com.customachievements.requirements.AchievementRequirement;
 import com.customachievements.requirements.ChunkRequirement;
+import com.customachievements.requirements.GroupOperator;
+import com.customachievements.requirements.GroupRequirement;
 import com.customachievements.requirements.ItemRequirement;
 import com.customachievements.requirements.ItemTrackingOption;
 import com.customachievements.requirements.QuestRequirement;
@@ -63,6 +68,7 @@ import com.customachievements.requirements.RequirementType;
 import com.customachievements.requirements.SkillRequirement;
 import com.customachievements.requirements.SkillTargetType;
 import com.customachievements.requirements.SlayRequirement;
+import com.google.common.collect.Lists;
 import lombok.NonNull;
 import net.runelite.api.Quest;
 import net.runelite.api.Skill;
@@ -93,7 +99,7 @@ public class EditAchievementPanel extends FixedWidthPanel
 
 	private final CustomAchievementsPlugin plugin;
 
-	private AchievementElement parent;
+	private long parentId;
 	private AchievementElement target;
 	private int targetIndex;
 
@@ -114,7 +120,7 @@ public class EditAchievementPanel extends FixedWidthPanel
 	{
 		this.plugin = plugin;
 
-		parent = null;
+		parentId = 0;
 		target = new Achievement("");
 		targetIndex = 0;
 
@@ -127,10 +133,13 @@ public class EditAchievementPanel extends FixedWidthPanel
 		refresh();
 	}
 
-	public void setTarget(int targetIndex, AchievementElement parent, AchievementElement target)
+	/**
+	 * Sets the element to edit. The target must be a copy owned by the editor, see {@link CustomAchievementsPlugin#copy}.
+	 */
+	public void setTarget(int targetIndex, long parentId, AchievementElement target)
 	{
-		this.parent = parent;
-		this.target = target.deepCopy();
+		this.parentId = parentId;
+		this.target = target;
 		this.targetIndex = targetIndex;
 
 		refresh();
@@ -138,32 +147,10 @@ public class EditAchievementPanel extends FixedWidthPanel
 
 	public void updateTarget()
 	{
-		if (parent == null)
-		{
-			if (targetIndex < plugin.getElements().size())
-			{
-				plugin.set(targetIndex, target);
-			}
-			else
-			{
-				plugin.add(target);
-			}
-		}
-		else
-		{
-			if (targetIndex < parent.getChildren().size())
-			{
-				plugin.set(targetIndex, parent, target);
-			}
-			else
-			{
-				plugin.add(parent, target);
-			}
-		}
+		plugin.put(targetIndex, parentId, target);
 
 		// Update Achievement status
 		plugin.globalRefresh();
-		plugin.updateConfig();
 
 		notifyListeners(ACTION_UPDATE);
 	}
@@ -191,7 +178,7 @@ public class EditAchievementPanel extends FixedWidthPanel
 		{
 			if (child instanceof Requirement)
 			{
-				add(createRequirementPanel((Requirement) child, parent != null), gbc);
+				add(createRequirementPanel((Requirement) child, parentId != 0), gbc);
 				gbc.gridy++;
 			}
 		}
@@ -202,7 +189,7 @@ public class EditAchievementPanel extends FixedWidthPanel
 			gbc.gridy++;
 		}
 
-		add(createAddRequirementPanel(parent != null), gbc);
+		add(createAddRequirementPanel(parentId != 0), gbc);
 		gbc.gridy++;
 
 		add(createConfirmationPanel(), gbc);
@@ -351,7 +338,7 @@ public class EditAchievementPanel extends FixedWidthPanel
 		removeButton.setRolloverIcon(REMOVE_ICON);
 		removeButton.setToolTipText("Remove");
 		removeButton.addActionListener(e -> {
-			target.getChildren().remove(requirement);
+			target.removeChild(requirement);
 			refresh();
 		});
 
@@ -374,6 +361,12 @@ public class EditAchievementPanel extends FixedWidthPanel
 			case CHUNK:
 				requirementPanel = createChunkRequirementPanel((ChunkRequirement) requirement);
 				break;
+			case GROUP:
+				requirementPanel = createGroupRequirementPanel((GroupRequirement) requirement);
+				break;
+			case ACHIEVEMENT:
+				requirementPanel = createAchievementRequirementPanel((AchievementRequirement) requirement);
+				break;
 			case ABSTRACT:
 			default:
 				requirementPanel = createAbstractRequirementPanel((AbstractRequirement) requirement);
@@ -639,6 +632,137 @@ public class EditAchievementPanel extends FixedWidthPanel
 		return wrapper;
 	}
 
+	private JPanel createGroupRequirementPanel(final GroupRequirement requirement)
+	{
+		final JPanel wrapper = new JPanel(new GridLayout(2, 2));
+		wrapper.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+
+		final JLabel operatorLabel = new JLabel("Operator");
+		operatorLabel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+		operatorLabel.setToolTipText("How many sub-requirements must be completed.");
+
+		final JComboBox<GroupOperator> operatorComboBox = new JComboBox<>(GroupOperator.values());
+		operatorComboBox.setForeground(Color.WHITE);
+		operatorComboBox.setBackground(ColorScheme.DARK_GRAY_COLOR);
+		operatorComboBox.setSelectedIndex(requirement.getOperator().ordinal());
+		operatorComboBox.setRenderer(new GroupOperatorComboBoxRenderer());
+		operatorComboBox.addActionListener(e -> {
+			requirement.setOperator((GroupOperator) operatorComboBox.getSelectedItem());
+			requirement.reset();
+			refresh();
+		});
+
+		final JLabel thresholdLabel = new JLabel("Threshold");
+		thresholdLabel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+		thresholdLabel.setToolTipText("The number of sub-requirements to complete when using At Least.");
+
+		final JSpinner thresholdSpinner = new JSpinner(new SpinnerNumberModel(1, 1, Integer.MAX_VALUE, 1));
+		thresholdSpinner.setBackground(ColorScheme.DARK_GRAY_COLOR);
+		thresholdSpinner.setValue(Math.max(1, requirement.getThreshold()));
+		thresholdSpinner.setEnabled(requirement.getOperator() == GroupOperator.AT_LEAST);
+		thresholdSpinner.addChangeListener(e -> {
+			requirement.setThreshold((int) thresholdSpinner.getValue());
+			requirement.reset();
+			refresh();
+		});
+
+		wrapper.add(operatorLabel);
+		wrapper.add(operatorComboBox);
+		wrapper.add(thresholdLabel);
+		wrapper.add(thresholdSpinner);
+
+		return wrapper;
+	}
+
+	private JPanel createAchievementRequirementPanel(final AchievementRequirement requirement)
+	{
+		final JPanel wrapper = new JPanel(new BorderLayout());
+		wrapper.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+
+		final JComboBox<ElementSnapshot> achievementComboBox = new JComboBox<>();
+		achievementComboBox.setForeground(Color.WHITE);
+		achievementComboBox.setBackground(ColorScheme.DARK_GRAY_COLOR);
+		achievementComboBox.setToolTipText("The achievement to complete. Achievements that would depend on themselves are not listed.");
+
+		ElementSnapshot current = null;
+
+		for (ElementSnapshot option : getDependencyOptions(requirement))
+		{
+			achievementComboBox.addItem(option);
+
+			if (option.getId() == requirement.getAchievementId())
+			{
+				current = option;
+			}
+		}
+
+		achievementComboBox.setSelectedItem(current);
+
+		achievementComboBox.addActionListener(e -> {
+			final ElementSnapshot selected = (ElementSnapshot) achievementComboBox.getSelectedItem();
+
+			if (selected != null)
+			{
+				requirement.setAchievementId(selected.getId());
+				requirement.setName(selected.getText());
+				requirement.reset();
+				refresh();
+			}
+		});
+
+		wrapper.add(achievementComboBox, BorderLayout.CENTER);
+
+		return wrapper;
+	}
+
+	/**
+	 * Lists the achievements the requirement may reference without the edited element coming to depend on itself.
+	 */
+	private List<ElementSnapshot> getDependencyOptions(final AchievementRequirement requirement)
+	{
+		final List<ElementSnapshot> roots = plugin.getSnapshot();
+		final Set<Long> ids = new HashSet<>();
+		ids.add(target.getId());
+		ids.add(requirement.getId());
+		collectPath(roots, parentId, ids);
+
+		final Set<Long> dependents = DependencyGraph.collectDependents(roots, ids);
+
+		final List<ElementSnapshot> options = new ArrayList<>();
+		final List<ElementSnapshot> stack = new ArrayList<>(Lists.reverse(roots));
+
+		while (!stack.isEmpty())
+		{
+			final ElementSnapshot snapshot = stack.remove(stack.size() - 1);
+
+			if (snapshot.getType() == null && !dependents.contains(snapshot.getId()))
+			{
+				options.add(snapshot);
+			}
+
+			stack.addAll(Lists.reverse(snapshot.getChildren()));
+		}
+
+		return options;
+	}
+
+	/**
+	 * Adds the ids on the path from the roots down to the given element, returning whether it was found.
+	 */
+	private static boolean collectPath(List<ElementSnapshot> snapshots, long id, Set<Long> path)
+	{
+		for (ElementSnapshot snapshot : snapshots)
+		{
+			if (snapshot.getId() == id || collectPath(snapshot.getChildren(), id, path))
+			{
+				path.add(snapshot.getId());
+				return true;
+			}
+		}
+
+		return false;
+	}
+
 	private JPanel createAbstractRequirementPanel(final AbstractRequirement requirement)
 	{
 		final JPanel wrapper = new JPanel(new BorderLayout());
@@ -690,7 +814,7 @@ public class EditAchievementPanel extends FixedWidthPanel
 			if (dropdown.getSelectedItem() != null)
 			{
 				Requirement requirement = plugin.createRequirement((RequirementType) dropdown.getSelectedItem());
-				target.getChildren().add(requirement);
+				target.addChild(requirement);
 			}
 
 			refresh();
@@ -754,6 +878,23 @@ public class EditAchievementPanel extends FixedWidthPanel
 		}
 	}
 
+	private static class GroupOperatorComboBoxRenderer extends DefaultListCellRenderer
+	{
+		@Override
+		public Component getListCellRendererComponent(JList list, Object value, int index, boolean isSelected, boolean cellHasFocus)
+		{
+			JLabel label = (JLabel) super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+
+			if (value instanceof GroupOperator)
+			{
+				GroupOperator operator = (GroupOperator) value;
+				label.setToolTipText(operator.getDescription());
+			}
+
+			return label;
+		}
+	}
+
 	private static class RequirementTypeComboBoxRenderer extends DefaultListCellRenderer
 	{
 		@Override
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import com.customachievements.requirements.AchievementRequirement;
+import com.customachievements.requirements.Requirement;
+import com.customachievements.requirements.RequirementType;
+import com.google.common.collect.ImmutableList;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Immutable view of an achievement element, published by the model thread for the panel to read without locking.
+ * Commands refer back to the live element by id.
+ * Snapshots are cached on their elements, so publishing after a change only rebuilds the path from the changed
+ * element up to its root and shares every other subtree with the previous version. Each snapshot also keeps a
+ * private copy of its element, from which the element can be restored by undo.
+ */
+@Getter
+public final class ElementSnapshot
+{
+	private final long id;
+	private final String text;
+	private final AchievementState state;
+	private final boolean forceComplete;
+	private final ImmutableList<String> keywords;
+	private final ImmutableList<ElementSnapshot> children;
+
+	// Fraction of the subtree's weight that is complete
+	private final double completion;
+
+	// Null for achievements
+	private final RequirementType type;
+
+	// Id of the element an achievement requirement references, 0 otherwise
+	private final long dependencyId;
+
+	// Whether the children have yet to be materialized, in which case the list is empty
+	private final boolean dormant;
+
+	// Never handed out to be modified, see materializeNode()
+	@Getter(AccessLevel.PACKAGE)
+	private final AchievementElement copy;
+
+	// The element this was taken of. Undo reuses it as long as it is still in the tree, as it has not been edited since
+	@Getter(AccessLevel.PACKAGE)
+	private final AchievementElement source;
+
+	private ElementSnapshot(AchievementElement element, ImmutableList<ElementSnapshot> children)
+	{
+		this.id = element.getId();
+		this.copy = element.copyNode();
+		this.source = element;
+		this.text = element.toString();
+		this.state = element.getState();
+		this.forceComplete = element.isForceComplete();
+		this.keywords = ImmutableList.copyOf(element.getKeywords());
+		this.children = children;
+		this.completion = element.getCompletion();
+		this.type = element instanceof Requirement ? ((Requirement) element).getType() : null;
+		this.dependencyId = element instanceof AchievementRequirement ?
+				((AchievementRequirement) element).getAchievementId() : 0;
+		this.dormant = element.isDormant();
+	}
+
+	public static ImmutableList<ElementSnapshot> of(List<AchievementElement> elements)
+	{
+		final ImmutableList.Builder<ElementSnapshot> builder = ImmutableList.builder();
+
+		for (AchievementElement element : elements)
+		{
+			builder.add(of(element));
+		}
+
+		return builder.build();
+	}
+
+	public static ElementSnapshot of(AchievementElement element)
+	{
+		ElementSnapshot snapshot = element.getSnapshot();
+
+		if (snapshot == null)
+		{
+			snapshot = new ElementSnapshot(element, of(element.getChildren()));
+			element.setSnapshot(snapshot);
+		}
+
+		return snapshot;
+	}
+
+	/**
+	 * Creates a new, unregistered copy of the element this snapshot was taken of, without children.
+	 */
+	AchievementElement materializeNode()
+	{
+		return copy.copyNode();
+	}
+
+	@Override
+	public String toString()
+	{
+		return text;
+	}
+}
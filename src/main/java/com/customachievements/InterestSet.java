@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import com.customachievements.requirements.ChunkRequirement;
+import com.customachievements.requirements.QuestRequirement;
+import com.customachievements.requirements.Requirement;
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.Multiset;
+import net.runelite.api.Quest;
+
+import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks what the registered requirements actually reference, so that reporters only do the work
+ * (and poll only the subset) that some requirement is interested in.
+ */
+@Singleton
+public class InterestSet
+{
+	private final Multiset<Quest> quests = ConcurrentHashMultiset.create();
+	// Updated on the model thread only
+	private final Map<Integer, Integer> regionCounts = new HashMap<>();
+	private boolean regionsChanged = false;
+
+	// Sorted copy of the referenced region ids, replaced by publishRegions() so reads are lock and allocation free
+	private volatile int[] regionIds = new int[0];
+
+	private final AtomicInteger slayRequirements = new AtomicInteger();
+	private final AtomicInteger itemRequirements = new AtomicInteger();
+
+	public void add(AchievementElement element)
+	{
+		if (element instanceof Requirement)
+		{
+			update((Requirement) element, true);
+		}
+		else if (element.isDormant())
+		{
+			// Completed quest requirements in dormant subtrees are still watched for regressions
+			element.getDormant().getQuests().forEach(quest -> update(quests, quest, true));
+		}
+	}
+
+	public void remove(AchievementElement element)
+	{
+		if (element instanceof Requirement)
+		{
+			update((Requirement) element, false);
+		}
+		else if (element.isDormant())
+		{
+			element.getDormant().getQuests().forEach(quest -> update(quests, quest, false));
+		}
+	}
+
+	/**
+	 * Replaces the sorted region ids if a region was first referenced or no longer is since the last call. Called once
+	 * after a batch of additions and removals, rather than once per chunk requirement.
+	 */
+	public void publishRegions()
+	{
+		if (regionsChanged)
+		{
+			regionsChanged = false;
+			regionIds = regionCounts.keySet().stream()
+					.mapToInt(Integer::intValue)
+					.sorted()
+					.toArray();
+		}
+	}
+
+	public boolean hasQuests()
+	{
+		return !quests.isEmpty();
+	}
+
+	/**
+	 * Returns a live view of every quest referenced by at least one requirement.
+	 */
+	public Set<Quest> getQuests()
+	{
+		return quests.elementSet();
+	}
+
+	public boolean hasRegions()
+	{
+		return regionIds.length > 0;
+	}
+
+	public boolean isRegionReferenced(int regionId)
+	{
+		return Arrays.binarySearch(regionIds, regionId) >= 0;
+	}
+
+	public boolean hasSlayRequirements()
+	{
+		return slayRequirements.get() > 0;
+	}
+
+	public boolean hasItemRequirements()
+	{
+		return itemRequirements.get() > 0;
+	}
+
+	private void update(Requirement requirement, boolean added)
+	{
+		switch (requirement.getType())
+		{
+			case QUEST:
+				update(quests, ((QuestRequirement) requirement).getQuest(), added);
+				break;
+			case CHUNK:
+				updateRegion(((ChunkRequirement) requirement).getRegionId(), added);
+				break;
+			case SLAY:
+				slayRequirements.addAndGet(added ? 1 : -1);
+				break;
+			case ITEM:
+				itemRequirements.addAndGet(added ? 1 : -1);
+				break;
+			default:
+				break;
+		}
+	}
+
+	private void updateRegion(int regionId, boolean added)
+	{
+		final int count = regionCounts.getOrDefault(regionId, 0) + (added ? 1 : -1);
+
+		if (count > 0)
+		{
+			regionCounts.put(regionId, count);
+		}
+		else
+		{
+			regionCounts.remove(regionId);
+		}
+
+		// Only a region gaining its first or losing its last requirement changes the published ids
+		if (count == (added ? 1 : 0))
+		{
+			regionsChanged = true;
+		}
+	}
+
+	private static <T> void update(Multiset<T> multiset, T value, boolean added)
+	{
+		if (added)
+		{
+			multiset.add(value);
+		}
+		else
+		{
+			multiset.remove(value);
+		}
+	}
+}
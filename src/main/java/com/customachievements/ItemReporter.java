@@ -26,10 +26,7 @@
 package com.customachievements;
 
 import com.customachievements.events.ItemsValidated;
-import net.runelite.api.Client;
-import net.runelite.api.GameState;
 import net.runelite.api.InventoryID;
-import net.runelite.api.ItemContainer;
 import net.runelite.api.events.ItemContainerChanged;
 import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.eventbus.Subscribe;
@@ -44,29 +41,30 @@ import java.util.stream.Collectors;
 
 public class ItemReporter
 {
-	private final Client client;
 	private final EventBus eventBus;
 	private final ItemManager itemManager;
 
 	private final CustomAchievementsConfig config;
+	private final InterestSet interestSet;
 
 	@Inject
 	public ItemReporter(
-			final Client client,
 			final EventBus eventBus,
 			final ItemManager itemManager,
-			final CustomAchievementsConfig config)
+			final CustomAchievementsConfig config,
+			final InterestSet interestSet)
 	{
-		this.client = client;
 		this.eventBus = eventBus;
 		this.itemManager = itemManager;
 		this.config = config;
+		this.interestSet = interestSet;
 	}
 
 	@Subscribe
 	public void onLootReceived(final LootReceived lootReceived)
 	{
-		if (config.ironmanModeEnabled() && lootReceived.getType() == LootRecordType.PLAYER)
+		if (!interestSet.hasItemRequirements() ||
+			(config.ironmanModeEnabled() && lootReceived.getType() == LootRecordType.PLAYER))
 		{
 			return;
 		}
@@ -85,7 +83,7 @@ public class ItemReporter
 	@Subscribe
 	public void onItemContainerChanged(final ItemContainerChanged itemContainerChanged)
 	{
-		if (itemContainerChanged.getContainerId() == InventoryID.INVENTORY.getId())
+		if (interestSet.hasItemRequirements() && itemContainerChanged.getContainerId() == InventoryID.INVENTORY.getId())
 		{
 			final Collection<NamedItem> items = Arrays.stream(itemContainerChanged.getItemContainer().getItems())
 					.map(item -> createNamedItem(item.getId(), item.getQuantity()))
@@ -95,19 +93,6 @@ public class ItemReporter
 		}
 	}
 
-	public void refresh()
-	{
-		if (client.getGameState() == GameState.LOGGED_IN)
-		{
-			ItemContainer container = client.getItemContainer(InventoryID.INVENTORY);
-
-			if (container != null)
-			{
-				eventBus.post(new ItemContainerChanged(InventoryID.INVENTORY.getId(), container));
-			}
-		}
-	}
-
 	private NamedItem createNamedItem(int id, int quantity)
 	{
 		return new NamedItem(id, itemManager.getItemComposition(id).getName(), quantity);
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum KillCreditPolicy
+{
+	ANY_DAMAGE("Any Damage", "Credit any kill you dealt damage to"),
+	MAJORITY_DAMAGE("Majority Damage", "Credit kills where you dealt more damage than everyone else"),
+	NO_OTHER_DAMAGE("No Other Damage", "Credit kills only when no one else dealt damage"),
+	LAST_HIT("Last Hit", "Credit kills where you dealt the final hit");
+
+	private final String name;
+	private final String description;
+
+	public boolean isCredited(int myDamage, int otherDamage, boolean hitByOthers, boolean lastHitMine)
+	{
+		switch (this)
+		{
+			case MAJORITY_DAMAGE:
+				return myDamage > otherDamage;
+			case NO_OTHER_DAMAGE:
+				return !hitByOthers;
+			case LAST_HIT:
+				return lastHitMine;
+			case ANY_DAMAGE:
+			default:
+				return true;
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return name;
+	}
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Owns the achievement model. Every mutation is queued from whichever thread requests it and run in order on a
+ * single model thread, so the model itself needs no locking. After each batch of queued commands is drained the
+ * flush callback runs, which is where persistence and snapshot publication happen.
+ */
+@Slf4j
+class ModelActor
+{
+	private static final long STOP_TIMEOUT_MILLIS = 5000;
+
+	private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+	private final Runnable flush;
+
+	private volatile Thread thread;
+	private volatile boolean running = false;
+
+	ModelActor(Runnable flush)
+	{
+		this.flush = flush;
+	}
+
+	void start()
+	{
+		// Anything left over from a previous run refers to elements that are gone
+		commands.clear();
+		running = true;
+		thread = new Thread(this::run, "custom-achievements-model");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops the model thread once every command queued so far has run.
+	 */
+	void stop()
+	{
+		final Thread current = thread;
+
+		execute(() -> running = false);
+
+		if (current != null && current != Thread.currentThread())
+		{
+			try
+			{
+				current.join(STOP_TIMEOUT_MILLIS);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		thread = null;
+	}
+
+	void execute(Runnable command)
+	{
+		commands.add(command);
+		LockSupport.unpark(thread);
+	}
+
+	boolean isModelThread()
+	{
+		return Thread.currentThread() == thread;
+	}
+
+	private void run()
+	{
+		while (running)
+		{
+			Runnable command = commands.poll();
+
+			if (command == null)
+			{
+				LockSupport.parkNanos(this, TimeUnit.SECONDS.toNanos(1));
+				continue;
+			}
+
+			while (command != null)
+			{
+				runSafely(command);
+				command = commands.poll();
+			}
+
+			runSafely(flush);
+		}
+	}
+
+	private static void runSafely(Runnable runnable)
+	{
+		try
+		{
+			runnable.run();
+		}
+		catch (RuntimeException e)
+		{
+			log.warn("Achievement model command failed", e);
+		}
+	}
+}
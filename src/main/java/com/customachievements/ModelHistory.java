@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Bounded undo and redo stacks of model versions. Versions are snapshot trees, which share every subtree that
+ * did not change between them, so each one costs roughly the size of its changes. Confined to the model thread.
+ */
+class ModelHistory
+{
+	static final int MAX_VERSIONS = 50;
+
+	private final Deque<ImmutableList<ElementSnapshot>> undoVersions = new ArrayDeque<>();
+	private final Deque<ImmutableList<ElementSnapshot>> redoVersions = new ArrayDeque<>();
+
+	/**
+	 * Records the version preceding a change, invalidating anything that could be redone.
+	 */
+	void record(ImmutableList<ElementSnapshot> version)
+	{
+		push(undoVersions, version);
+		redoVersions.clear();
+	}
+
+	/**
+	 * Returns the version to restore, or null if there is nothing to undo.
+	 */
+	ImmutableList<ElementSnapshot> undo(ImmutableList<ElementSnapshot> current)
+	{
+		if (undoVersions.isEmpty())
+		{
+			return null;
+		}
+
+		push(redoVersions, current);
+		return undoVersions.pop();
+	}
+
+	/**
+	 * Returns the version to restore, or null if there is nothing to redo.
+	 */
+	ImmutableList<ElementSnapshot> redo(ImmutableList<ElementSnapshot> current)
+	{
+		if (redoVersions.isEmpty())
+		{
+			return null;
+		}
+
+		push(undoVersions, current);
+		return redoVersions.pop();
+	}
+
+	void clear()
+	{
+		undoVersions.clear();
+		redoVersions.clear();
+	}
+
+	private static void push(Deque<ImmutableList<ElementSnapshot>> versions, ImmutableList<ElementSnapshot> version)
+	{
+		versions.push(version);
+
+		if (versions.size() > MAX_VERSIONS)
+		{
+			versions.removeLast();
+		}
+	}
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import lombok.Setter;
+import lombok.Value;
+import net.runelite.client.chat.ChatColorType;
+import net.runelite.client.chat.ChatMessageBuilder;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Collects completion notifications and sends them once per game tick. When more complete in a tick than the
+ * threshold, or than the rate limit allows, they are collapsed into a single summary message. Completions may be
+ * reported from any thread, {@link #onGameTick()} must run on the client thread.
+ */
+class NotificationPipeline
+{
+	// More completions than this in one tick are summarized
+	static final int SUMMARY_THRESHOLD = 3;
+
+	// Token bucket, allowing a burst of messages and then one every few ticks
+	private static final int MAX_TOKENS = 5;
+	private static final int TICKS_PER_TOKEN = 2;
+
+	private final CustomAchievementsConfig config;
+	private final Consumer<String> sender;
+	private final Queue<Completion> incoming = new ConcurrentLinkedQueue<>();
+
+	// Client thread only
+	private final List<Completion> pending = new ArrayList<>();
+	private int tokens = MAX_TOKENS;
+	private int ticksUntilToken = TICKS_PER_TOKEN;
+
+	// Set around bulk loads and refreshes, whose completions are not news to the player
+	@Setter
+	private volatile boolean suppressed = false;
+
+	NotificationPipeline(CustomAchievementsConfig config, Consumer<String> sender)
+	{
+		this.config = config;
+		this.sender = sender;
+	}
+
+	void onCompleted(AchievementElement element)
+	{
+		if (!suppressed)
+		{
+			incoming.add(new Completion(element instanceof Achievement, element.completionChatMessage(config)));
+		}
+	}
+
+	void onGameTick()
+	{
+		if (tokens < MAX_TOKENS && --ticksUntilToken <= 0)
+		{
+			tokens++;
+			ticksUntilToken = TICKS_PER_TOKEN;
+		}
+
+		Completion completion;
+
+		while ((completion = incoming.poll()) != null)
+		{
+			pending.add(completion);
+		}
+
+		if (pending.isEmpty() || tokens == 0)
+		{
+			return;
+		}
+
+		if (pending.size() > SUMMARY_THRESHOLD || pending.size() > tokens)
+		{
+			tokens--;
+			sender.accept(summarize(pending));
+		}
+		else
+		{
+			for (Completion each : pending)
+			{
+				tokens--;
+				sender.accept(each.getMessage());
+			}
+		}
+
+		pending.clear();
+	}
+
+	void clear()
+	{
+		incoming.clear();
+		pending.clear();
+		tokens = MAX_TOKENS;
+		ticksUntilToken = TICKS_PER_TOKEN;
+	}
+
+	private String summarize(List<Completion> completions)
+	{
+		int achievements = 0;
+
+		for (Completion completion : completions)
+		{
+			if (completion.isAchievement())
+			{
+				achievements++;
+			}
+		}
+
+		final int requirements = completions.size() - achievements;
+		final Color notificationsColor = config.notificationsColor();
+
+		return new ChatMessageBuilder()
+				.append(ChatColorType.HIGHLIGHT)
+				.append(notificationsColor, String.format("Congratulations! You have completed %s and %s.",
+						plural(achievements, "achievement"),
+						plural(requirements, "requirement")))
+				.build();
+	}
+
+	private static String plural(int count, String noun)
+	{
+		return String.format("%d %s%s", count, noun, count == 1 ? "" : "s");
+	}
+
+	@Value
+	private static class Completion
+	{
+		boolean achievement;
+		String message;
+	}
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import java.util.Arrays;
+
+/**
+ * Per-NPC damage accumulators keyed by NPC index.
+ * Entries are kept in parallel primitive arrays using open addressing, so recording a hit and
+ * resolving a death are O(1) and allocation free no matter how many players are hitting the NPC.
+ */
+class NpcDamageTable
+{
+	private static final int EMPTY = -1;
+	private static final int INITIAL_CAPACITY = 32;
+
+	private static final byte HIT_BY_ME = 1;
+	private static final byte HIT_BY_OTHERS = 1 << 1;
+	private static final byte LAST_HIT_MINE = 1 << 2;
+
+	private int[] keys;
+	private int[] myDamage;
+	private int[] otherDamage;
+	private byte[] flags;
+	private int size;
+
+	NpcDamageTable()
+	{
+		allocate(INITIAL_CAPACITY);
+	}
+
+	boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	boolean contains(int npcIndex)
+	{
+		return find(npcIndex) != EMPTY;
+	}
+
+	boolean isHitByOthers(int npcIndex)
+	{
+		final int slot = find(npcIndex);
+		return slot != EMPTY && (flags[slot] & HIT_BY_OTHERS) != 0;
+	}
+
+	void recordMine(int npcIndex, int damage)
+	{
+		final int slot = insert(npcIndex);
+
+		myDamage[slot] += damage;
+		flags[slot] |= HIT_BY_ME | LAST_HIT_MINE;
+	}
+
+	void recordOthers(int npcIndex, int damage)
+	{
+		final int slot = insert(npcIndex);
+
+		otherDamage[slot] += damage;
+		flags[slot] = (byte) ((flags[slot] | HIT_BY_OTHERS) & ~LAST_HIT_MINE);
+	}
+
+	/**
+	 * Discards all damage dealt by other players, e.g. once the NPC is known to have regenerated to full health.
+	 */
+	void forgiveOthers(int npcIndex)
+	{
+		final int slot = find(npcIndex);
+
+		if (slot != EMPTY)
+		{
+			otherDamage[slot] = 0;
+			flags[slot] &= ~HIT_BY_OTHERS;
+		}
+	}
+
+	/**
+	 * Removes the entry for the given NPC and returns whether the kill should be credited under the given policy.
+	 */
+	boolean resolve(int npcIndex, KillCreditPolicy policy)
+	{
+		final int slot = find(npcIndex);
+
+		if (slot == EMPTY)
+		{
+			return false;
+		}
+
+		final byte entryFlags = flags[slot];
+		final boolean credited = (entryFlags & HIT_BY_ME) != 0 && policy.isCredited(
+				myDamage[slot],
+				otherDamage[slot],
+				(entryFlags & HIT_BY_OTHERS) != 0,
+				(entryFlags & LAST_HIT_MINE) != 0);
+
+		removeSlot(slot);
+		return credited;
+	}
+
+	void remove(int npcIndex)
+	{
+		final int slot = find(npcIndex);
+
+		if (slot != EMPTY)
+		{
+			removeSlot(slot);
+		}
+	}
+
+	void clear()
+	{
+		Arrays.fill(keys, EMPTY);
+		size = 0;
+	}
+
+	private int find(int npcIndex)
+	{
+		final int mask = keys.length - 1;
+		int slot = mix(npcIndex) & mask;
+
+		while (keys[slot] != EMPTY)
+		{
+			if (keys[slot] == npcIndex)
+			{
+				return slot;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		return EMPTY;
+	}
+
+	private int insert(int npcIndex)
+	{
+		int mask = keys.length - 1;
+		int slot = mix(npcIndex) & mask;
+
+		while (keys[slot] != EMPTY)
+		{
+			if (keys[slot] == npcIndex)
+			{
+				return slot;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		// Keep the load factor at or below 1/2
+		if ((size + 1) * 2 > keys.length)
+		{
+			grow();
+			mask = keys.length - 1;
+			slot = mix(npcIndex) & mask;
+
+			while (keys[slot] != EMPTY)
+			{
+				slot = (slot + 1) & mask;
+			}
+		}
+
+		keys[slot] = npcIndex;
+		myDamage[slot] = 0;
+		otherDamage[slot] = 0;
+		flags[slot] = 0;
+		size++;
+
+		return slot;
+	}
+
+	private void removeSlot(int slot)
+	{
+		final int mask = keys.length - 1;
+		int hole = slot;
+		int next = (slot + 1) & mask;
+
+		// Backward shift deletion keeps probe sequences intact without tombstones
+		while (keys[next] != EMPTY)
+		{
+			final int home = mix(keys[next]) & mask;
+
+			if (((next - home) & mask) >= ((next - hole) & mask))
+			{
+				keys[hole] = keys[next];
+				myDamage[hole] = myDamage[next];
+				otherDamage[hole] = otherDamage[next];
+				flags[hole] = flags[next];
+				hole = next;
+			}
+
+			next = (next + 1) & mask;
+		}
+
+		keys[hole] = EMPTY;
+		size--;
+	}
+
+	private void grow()
+	{
+		final int[] oldKeys = keys;
+		final int[] oldMyDamage = myDamage;
+		final int[] oldOtherDamage = otherDamage;
+		final byte[] oldFlags = flags;
+
+		allocate(oldKeys.length * 2);
+
+		final int mask = keys.length - 1;
+
+		for (int i = 0; i < oldKeys.length; i++)
+		{
+			if (oldKeys[i] != EMPTY)
+			{
+				int slot = mix(oldKeys[i]) & mask;
+
+				while (keys[slot] != EMPTY)
+				{
+					slot = (slot + 1) & mask;
+				}
+
+				keys[slot] = oldKeys[i];
+				myDamage[slot] = oldMyDamage[i];
+				otherDamage[slot] = oldOtherDamage[i];
+				flags[slot] = oldFlags[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity)
+	{
+		keys = new int[capacity];
+		myDamage = new int[capacity];
+		otherDamage = new int[capacity];
+		flags = new byte[capacity];
+		Arrays.fill(keys, EMPTY);
+	}
+
+	private static int mix(int key)
+	{
+		final int h = key * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -27,101 +27,115 @@ package com.customachievements;
 
 import com.customachievements.events.KilledNpc;
 import net.runelite.api.Client;
-import net.runelite.api.GameState;
 import net.runelite.api.Hitsplat;
 import net.runelite.api.NPC;
 import net.runelite.api.events.ActorDeath;
 import net.runelite.api.events.GameTick;
 import net.runelite.api.events.HitsplatApplied;
+import net.runelite.api.events.NpcDespawned;
 import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.game.NPCManager;
-import net.runelite.client.task.Schedule;
 
 import javax.inject.Inject;
-import java.time.temporal.ChronoUnit;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-import java.util.function.Predicate;
+import java.util.HashMap;
+import java.util.Map;
 
 public class NpcKillReporter
 {
+	// Stale damage entries are pruned every 3 seconds while fighting, backing off to once a minute
+	private static final int MIN_UPDATE_PERIOD = 5;
+	private static final int MAX_UPDATE_PERIOD = 100;
+
 	private final Client client;
 	private final EventBus eventBus;
 	private final NPCManager npcManager;
 
 	private final CustomAchievementsConfig config;
+	private final InterestSet interestSet;
+	private final ReporterScheduler.Task updateTask;
+
+	private final NpcDamageTable damageTable;
 
-	private final Set<NPC> targetNpcs;
-	private final Set<NPC> ignoredNpcs;
-	private HitsplatApplied lastHit;
-	private boolean validateFullHealth;
+	// Damage dealt this tick to NPCs with a hidden health bar that others have hit, validated on the next game tick
+	private final Map<NPC, Integer> pendingValidations;
 
 	@Inject
 	public NpcKillReporter(
 			final Client client,
 			final EventBus eventBus,
 			final NPCManager npcManager,
-			final CustomAchievementsConfig config)
+			final CustomAchievementsConfig config,
+			final InterestSet interestSet,
+			final ReporterScheduler scheduler)
 	{
 		this.client = client;
 		this.eventBus = eventBus;
 		this.npcManager = npcManager;
 		this.config = config;
+		this.interestSet = interestSet;
 
-		targetNpcs = new HashSet<>();
-		ignoredNpcs = new HashSet<>();
-		lastHit = new HitsplatApplied();
-		validateFullHealth = false;
+		damageTable = new NpcDamageTable();
+		pendingValidations = new HashMap<>();
+		updateTask = scheduler.register("NPC damage pruning", this::update, MIN_UPDATE_PERIOD, MAX_UPDATE_PERIOD);
 	}
 
 	@Subscribe
 	public void onGameTick(final GameTick _gameTick)
 	{
-		if (validateFullHealth)
+		if (pendingValidations.isEmpty())
+		{
+			return;
+		}
+
+		for (Map.Entry<NPC, Integer> entry : pendingValidations.entrySet())
 		{
-			final NPC npc = (NPC) lastHit.getActor();
+			final NPC npc = entry.getKey();
 			final Integer maxHealth = npcManager.getHealth(npc.getId());
-			final int originalHealth = getNpcHealth(npc) + lastHit.getHitsplat().getAmount();
 
-			if (maxHealth != null && originalHealth == maxHealth)
+			if (maxHealth == null)
 			{
-				ignoredNpcs.remove(npc);
-				targetNpcs.add(npc);
+				continue;
 			}
 
-			validateFullHealth = false;
+			final int originalHealth = getNpcHealth(npc, maxHealth) + entry.getValue();
+
+			if (originalHealth == maxHealth)
+			{
+				// The NPC regenerated to full health since it was last hit by someone else
+				damageTable.forgiveOthers(npc.getIndex());
+			}
 		}
+
+		pendingValidations.clear();
 	}
 
 	@Subscribe
 	public void onHitsplatApplied(final HitsplatApplied hitsplatApplied)
 	{
-		if (hitsplatApplied.getActor() instanceof NPC)
+		// Damage is only worth accounting for while some requirement counts kills
+		if (interestSet.hasSlayRequirements() && hitsplatApplied.getActor() instanceof NPC)
 		{
 			final Hitsplat hitsplat = hitsplatApplied.getHitsplat();
 			final NPC npc = (NPC) hitsplatApplied.getActor();
 
+			updateTask.activity();
+
 			if (hitsplat.isMine() && hitsplat.getHitsplatType() != Hitsplat.HitsplatType.BLOCK_ME)
 			{
-				if (!ignoredNpcs.contains(npc))
-				{
-					targetNpcs.add(npc);
-				}
-				else if (npc.getHealthScale() == -1)
+				if (npc.getHealthScale() == -1 && damageTable.isHitByOthers(npc.getIndex()))
 				{
 					// NPC health bar was hidden, so check to see if health was full on next game tick
-					// and add the NPC to the target set if that's the case.
-					validateFullHealth = true;
+					// and forget any damage dealt by others if that's the case. Every hit landed this tick
+					// is accumulated so multi-target attacks validate each NPC together.
+					pendingValidations.merge(npc, hitsplat.getAmount(), Integer::sum);
 				}
 
-				lastHit = hitsplatApplied;
+				damageTable.recordMine(npc.getIndex(), hitsplat.getAmount());
 			}
-			else if (config.ironmanModeEnabled() && hitsplat.isOthers() && hitsplat.getHitsplatType() != Hitsplat.HitsplatType.BLOCK_OTHER)
+			else if (hitsplat.isOthers() && hitsplat.getHitsplatType() != Hitsplat.HitsplatType.BLOCK_OTHER)
 			{
-				targetNpcs.remove(npc);
-				ignoredNpcs.add(npc);
+				damageTable.recordOthers(npc.getIndex(), hitsplat.getAmount());
 			}
 		}
 	}
@@ -132,50 +146,58 @@ public class NpcKillReporter
 		if (actorDeath.getActor() instanceof NPC)
 		{
 			final NPC npc = (NPC) actorDeath.getActor();
+			pendingValidations.remove(npc);
 
-			if (!ignoredNpcs.remove(npc) && targetNpcs.remove(npc))
+			if (damageTable.resolve(npc.getIndex(), getKillCreditPolicy()))
 			{
-				eventBus.post(new KilledNpc(npc));
+				eventBus.post(new KilledNpc(npc, npc.getName()));
 			}
 		}
 	}
 
-	@Schedule(
-			period = CustomAchievementsPlugin.UPDATE_FREQUENCY,
-			unit = ChronoUnit.SECONDS
-	)
-	public void updateTask()
+	@Subscribe
+	public void onNpcDespawned(final NpcDespawned npcDespawned)
 	{
-		if (client.getGameState() == GameState.LOGGED_IN)
-		{
-			update();
-		}
+		final NPC npc = npcDespawned.getNpc();
+
+		// NPC indices are reused, so entries must not outlive the NPC they were recorded for
+		pendingValidations.remove(npc);
+		damageTable.remove(npc.getIndex());
 	}
 
 	public void update()
 	{
-		final List<NPC> npcs = client.getNpcs();
+		if (damageTable.isEmpty())
+		{
+			return;
+		}
 
-		final Predicate<NPC> canForgetNpc = npc -> {
+		for (NPC npc : client.getNpcs())
+		{
 			final boolean healthShowing = npc.getHealthScale() != -1;
-			final boolean fullHealth = (npc.getHealthRatio() / npc.getHealthScale()) == 1;
+			final boolean fullHealth = npc.getHealthRatio() == npc.getHealthScale();
 
-			return (healthShowing && fullHealth) || !npcs.contains(npc);
-		};
+			if (healthShowing && fullHealth)
+			{
+				damageTable.remove(npc.getIndex());
+			}
+		}
+	}
 
-		targetNpcs.removeIf(canForgetNpc);
-		ignoredNpcs.removeIf(canForgetNpc);
+	private KillCreditPolicy getKillCreditPolicy()
+	{
+		// Help from other players only matters to ironmen
+		return config.ironmanModeEnabled() ? config.killCreditPolicy() : KillCreditPolicy.ANY_DAMAGE;
 	}
 
-	private int getNpcHealth(NPC npc)
+	private int getNpcHealth(NPC npc, int maxHealth)
 	{
-		final Integer maxHealth = npcManager.getHealth(npc.getId());
 		final float ratio = npc.getHealthRatio();
 		final float scale = npc.getHealthScale();
 
 		// This is the equivalent of the reverse operation done by the server to get the health.
 		// The calculation done for the health ratio by the server is as follows (quoted from the opponentinfo plugin):
 		//     ratio = 1 + ((scale - 1) * health) / maxHealth, if health > 0, otherwise 0
-		return maxHealth == null ? 0 : (int) Math.ceil((maxHealth * Math.max(0, ratio - 1)) / (scale - 1));
+		return (int) Math.ceil((maxHealth * Math.max(0, ratio - 1)) / (scale - 1));
 	}
 }
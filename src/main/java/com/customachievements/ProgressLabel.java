@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import net.runelite.client.ui.ColorScheme;
+
+import javax.swing.JLabel;
+import java.awt.Color;
+import java.awt.Graphics;
+
+/**
+ * A label with a thin progress bar drawn along its bottom edge.
+ */
+public class ProgressLabel extends JLabel
+{
+	private static final int BAR_HEIGHT = 2;
+
+	private double completion = 0;
+	private Color barColor = ColorScheme.PROGRESS_INPROGRESS_COLOR;
+
+	public void setCompletion(double completion, Color barColor)
+	{
+		this.completion = Math.max(0, Math.min(1, completion));
+		this.barColor = barColor;
+		repaint();
+	}
+
+	@Override
+	protected void paintComponent(Graphics g)
+	{
+		super.paintComponent(g);
+
+		final int y = getHeight() - BAR_HEIGHT;
+		final int width = getWidth();
+		final int filled = (int) Math.round(width * completion);
+
+		g.setColor(ColorScheme.DARK_GRAY_COLOR);
+		g.fillRect(filled, y, width - filled, BAR_HEIGHT);
+		g.setColor(barColor);
+		g.fillRect(0, y, filled, BAR_HEIGHT);
+	}
+}
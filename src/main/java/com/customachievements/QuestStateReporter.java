@@ -31,40 +31,126 @@ import net.runelite.api.GameState;
 import net.runelite.api.Quest;
 import net.runelite.api.QuestState;
 import net.runelite.api.ScriptID;
+import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.ScriptPostFired;
+import net.runelite.api.events.VarbitChanged;
 import net.runelite.api.events.WidgetLoaded;
 import net.runelite.api.widgets.WidgetID;
 import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.eventbus.Subscribe;
-import net.runelite.client.task.Schedule;
 
 import javax.inject.Inject;
-import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 public class QuestStateReporter
 {
+	// Quest states are re-checked every tick during quest dialogs, backing off to every 16 ticks otherwise
+	private static final int MIN_UPDATE_PERIOD = 1;
+	private static final int MAX_UPDATE_PERIOD = 16;
+
+	// Changes to varps not yet known to back a quest check every quest at most this often, about every 30 seconds
+	private static final int FULL_CHECK_PERIOD = 50;
+
 	private final Client client;
 	private final EventBus eventBus;
+	private final InterestSet interestSet;
+	private final ReporterScheduler.Task updateTask;
+
+	private final Map<Quest, QuestState> questStateCache;
+
+	// Quests by the varps seen to change along with their state. Learned, as the Quest enum does not expose them
+	private final Map<Integer, Set<Quest>> questsByVarp;
 
-	private final Map<Integer, QuestState> questStateCache;
+	// Changed since the last check, cleared once quest states have been re-checked
+	private final Set<Quest> changedQuests;
+	private final Set<Integer> mappedVarps;
+	private final Set<Integer> unknownVarps;
+	private boolean dialogOpened;
+	private int lastFullCheck;
 
 	@Inject
-	public QuestStateReporter(final Client client, final EventBus eventBus)
+	public QuestStateReporter(
+			final Client client,
+			final EventBus eventBus,
+			final InterestSet interestSet,
+			final ReporterScheduler scheduler)
 	{
 		this.client = client;
 		this.eventBus = eventBus;
+		this.interestSet = interestSet;
 
-		questStateCache = new HashMap<>();
+		questStateCache = new EnumMap<>(Quest.class);
+		questsByVarp = new HashMap<>();
+		changedQuests = EnumSet.noneOf(Quest.class);
+		mappedVarps = new HashSet<>();
+		unknownVarps = new HashSet<>();
+		dialogOpened = false;
+		lastFullCheck = -FULL_CHECK_PERIOD;
+		updateTask = scheduler.register("Quest states", this::updateChanged, MIN_UPDATE_PERIOD, MAX_UPDATE_PERIOD);
+	}
+
+	@Subscribe
+	public void onGameStateChanged(final GameStateChanged gameStateChanged)
+	{
+		if (gameStateChanged.getGameState() == GameState.LOGIN_SCREEN)
+		{
+			// Cached states belong to the account that just logged out. Learned varps are relearned, so that a
+			// varp mapped to the wrong quests does not stay that way
+			questStateCache.clear();
+			questsByVarp.clear();
+			changedQuests.clear();
+			mappedVarps.clear();
+			unknownVarps.clear();
+			dialogOpened = false;
+		}
+	}
+
+	@Subscribe
+	public void onVarbitChanged(final VarbitChanged varbitChanged)
+	{
+		if (!interestSet.hasQuests())
+		{
+			return;
+		}
+
+		// Quest progress is backed entirely by varbits/varps, so nothing can have changed otherwise.
+		// Changes are coalesced and checked by the scheduled update task.
+		final Set<Quest> quests = questsByVarp.get(varbitChanged.getIndex());
+
+		if (quests != null)
+		{
+			changedQuests.addAll(quests);
+			mappedVarps.add(varbitChanged.getIndex());
+		}
+		else
+		{
+			unknownVarps.add(varbitChanged.getIndex());
+		}
 	}
 
 	@Subscribe
 	public void onWidgetLoaded(final WidgetLoaded widgetLoaded)
 	{
-		if (widgetLoaded.getGroupId() == WidgetID.QUEST_COMPLETED_GROUP_ID)
+		switch (widgetLoaded.getGroupId())
 		{
-			update();
+			case WidgetID.QUEST_COMPLETED_GROUP_ID:
+				update();
+				break;
+			case WidgetID.DIALOG_NPC_GROUP_ID:
+			case WidgetID.DIALOG_PLAYER_GROUP_ID:
+			case WidgetID.DIALOG_OPTION_GROUP_ID:
+				// Quests are usually started and progressed through dialog
+				dialogOpened = true;
+				updateTask.activity();
+				break;
+			default:
+				break;
 		}
 	}
 
@@ -73,42 +159,92 @@ public class QuestStateReporter
 	{
 		if (scriptPostFired.getScriptId() == ScriptID.QUESTLIST_PROGRESS_LIST_SHOW)
 		{
-			for (Quest quest : Quest.values())
-			{
-				QuestState state = quest.getState(client);
+			update();
+		}
+	}
+
+	public void updateChanged()
+	{
+		final boolean fullCheckDue = client.getTickCount() - lastFullCheck >= FULL_CHECK_PERIOD;
 
-				questStateCache.put(quest.getId(), state);
-				eventBus.post(new QuestStateChanged(quest, state));
+		if (!unknownVarps.isEmpty() && (dialogOpened || fullCheckDue))
+		{
+			final Set<Quest> changed = check(interestSet.getQuests());
+			addUnexplained(changed);
+
+			// Whatever changed in the meantime may back the quests that changed state
+			for (Quest quest : changed)
+			{
+				for (int varp : unknownVarps)
+				{
+					questsByVarp.computeIfAbsent(varp, v -> EnumSet.noneOf(Quest.class)).add(quest);
+				}
 			}
+
+			unknownVarps.clear();
+			changedQuests.clear();
+			dialogOpened = false;
+			lastFullCheck = client.getTickCount();
+		}
+		else if (!changedQuests.isEmpty())
+		{
+			addUnexplained(check(changedQuests));
+			changedQuests.clear();
 		}
 	}
 
-	@Schedule(
-			period = CustomAchievementsPlugin.UPDATE_FREQUENCY,
-			unit = ChronoUnit.SECONDS
-	)
-	public void updateTask()
+	/**
+	 * Counts the changed varps none of whose known quests changed as unknown again, as they may back other quests too.
+	 */
+	private void addUnexplained(Set<Quest> changed)
 	{
-		if (client.getGameState() == GameState.LOGGED_IN)
+		for (int varp : mappedVarps)
 		{
-			update();
+			if (Collections.disjoint(questsByVarp.get(varp), changed))
+			{
+				unknownVarps.add(varp);
+			}
 		}
+
+		mappedVarps.clear();
 	}
 
 	public void update()
 	{
-		for (Quest quest : Quest.values())
+		check(interestSet.getQuests());
+	}
+
+	/**
+	 * Re-checks the given quests, posting an event for each that changed state, and returns those.
+	 */
+	private Set<Quest> check(Set<Quest> quests)
+	{
+		final Set<Quest> changed = EnumSet.noneOf(Quest.class);
+
+		if (client.getGameState() != GameState.LOGGED_IN || !interestSet.hasQuests())
+		{
+			return changed;
+		}
+
+		// Only quests referenced by a requirement are worth running the quest state script for
+		for (Quest quest : quests)
 		{
-			if (questStateCache.get(quest.getId()) != QuestState.FINISHED)
+			final QuestState cached = questStateCache.get(quest);
+
+			// Finished quests can never change again
+			if (cached != QuestState.FINISHED && interestSet.getQuests().contains(quest))
 			{
-				QuestState state = quest.getState(client);
+				final QuestState state = quest.getState(client);
 
-				if (questStateCache.get(quest.getId()) != state)
+				if (cached != state)
 				{
-					questStateCache.put(quest.getId(), state);
+					questStateCache.put(quest, state);
+					changed.add(quest);
 					eventBus.post(new QuestStateChanged(quest, state));
 				}
 			}
 		}
+
+		return changed;
 	}
 }
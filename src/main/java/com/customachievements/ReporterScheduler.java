@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import com.google.common.collect.ImmutableList;
+import lombok.Getter;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.events.GameTick;
+import net.runelite.client.eventbus.Subscribe;
+
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Runs the periodic work of each reporter on the client thread at a rate that adapts to activity.
+ * A task runs at its minimum period while activity is being reported and doubles its period after
+ * every idle run until its maximum period is reached.
+ */
+@Slf4j
+@Singleton
+public class ReporterScheduler
+{
+	// Ticks between metrics reports in the debug log, about every 10 minutes
+	private static final int METRICS_PERIOD = 1000;
+
+	private final List<Task> tasks = new CopyOnWriteArrayList<>();
+	private int tickCount = 0;
+
+	/**
+	 * Registers a task. Periods are measured in game ticks.
+	 */
+	public Task register(String name, Runnable runnable, int minPeriod, int maxPeriod)
+	{
+		final Task task = new Task(name, runnable, minPeriod, maxPeriod);
+
+		tasks.add(task);
+		return task;
+	}
+
+	/**
+	 * Signals activity relevant to every task, e.g. the player moving to a new region.
+	 */
+	public void activity()
+	{
+		for (Task task : tasks)
+		{
+			task.activity();
+		}
+	}
+
+	public List<TaskMetrics> getMetrics()
+	{
+		final ImmutableList.Builder<TaskMetrics> metrics = ImmutableList.builder();
+
+		for (Task task : tasks)
+		{
+			metrics.add(new TaskMetrics(
+					task.name,
+					task.period,
+					task.runs,
+					task.lastRunNanos,
+					task.averageRunNanos));
+		}
+
+		return metrics.build();
+	}
+
+	@Subscribe
+	public void onGameTick(final GameTick _gameTick)
+	{
+		tickCount++;
+
+		for (Task task : tasks)
+		{
+			if (tickCount - task.nextRunTick >= 0)
+			{
+				task.run(tickCount);
+			}
+		}
+
+		if (tickCount % METRICS_PERIOD == 0 && log.isDebugEnabled())
+		{
+			for (TaskMetrics metrics : getMetrics())
+			{
+				log.debug("Reporter task \"{}\": every {} ticks, {} runs, last {} ns, average {} ns",
+						metrics.getName(),
+						metrics.getPeriodTicks(),
+						metrics.getRuns(),
+						metrics.getLastRunNanos(),
+						metrics.getAverageRunNanos());
+			}
+		}
+	}
+
+	public final class Task
+	{
+		@Getter
+		private final String name;
+		private final Runnable runnable;
+		private final int minPeriod;
+		private final int maxPeriod;
+
+		private volatile int period;
+		private volatile long runs;
+		private volatile long lastRunNanos;
+		private volatile long averageRunNanos;
+
+		private int nextRunTick;
+		private boolean active;
+
+		private Task(String name, Runnable runnable, int minPeriod, int maxPeriod)
+		{
+			this.name = name;
+			this.runnable = runnable;
+			this.minPeriod = minPeriod;
+			this.maxPeriod = maxPeriod;
+			this.period = maxPeriod;
+			this.nextRunTick = tickCount + maxPeriod;
+			this.active = false;
+		}
+
+		/**
+		 * Signals activity relevant to this task, bringing its next run forward to the minimum period.
+		 */
+		public void activity()
+		{
+			active = true;
+
+			if (nextRunTick - (tickCount + minPeriod) > 0)
+			{
+				nextRunTick = tickCount + minPeriod;
+			}
+		}
+
+		private void run(int tick)
+		{
+			final long start = System.nanoTime();
+			runnable.run();
+			final long elapsed = System.nanoTime() - start;
+
+			final int previousPeriod = period;
+			period = active ? minPeriod : Math.min(maxPeriod, period * 2);
+			nextRunTick = tick + period;
+			active = false;
+
+			runs++;
+			lastRunNanos = elapsed;
+			averageRunNanos = runs == 1 ? elapsed : (averageRunNanos * 7 + elapsed) / 8;
+
+			if (period != previousPeriod)
+			{
+				log.debug("Reporter task \"{}\" now runs every {} ticks", name, period);
+			}
+		}
+	}
+
+	@Value
+	public static class TaskMetrics
+	{
+		String name;
+		int periodTicks;
+		long runs;
+		long lastRunNanos;
+		long averageRunNanos;
+	}
+}
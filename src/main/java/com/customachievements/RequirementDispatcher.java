@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import com.customachievements.events.ChunkEntered;
+import com.customachievements.events.ItemsValidated;
+import com.customachievements.events.KilledNpc;
+import com.customachievements.events.QuestStateChanged;
+import com.customachievements.requirements.ChunkRequirement;
+import com.customachievements.requirements.CountedRequirement;
+import com.customachievements.requirements.CounterCell;
+import com.customachievements.requirements.ItemRequirement;
+import com.customachievements.requirements.ItemTrackingOption;
+import com.customachievements.requirements.QuestRequirement;
+import com.customachievements.requirements.SkillRequirement;
+import com.customachievements.requirements.SlayRequirement;
+import net.runelite.api.Quest;
+import net.runelite.api.QuestState;
+import net.runelite.api.events.StatChanged;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Routes reporter events to the registered requirements that handle them. Confined to the model thread.
+ */
+class RequirementDispatcher
+{
+	private final Set<SkillRequirement> skillRequirements = new LinkedHashSet<>();
+	private final Set<ItemRequirement> inventoryRequirements = new LinkedHashSet<>();
+	private final Set<QuestRequirement> questRequirements = new LinkedHashSet<>();
+	private final Set<ChunkRequirement> chunkRequirements = new LinkedHashSet<>();
+
+	// Counting requirements with the same lowercase target share a cell, so each event is counted once
+	private final Map<String, CounterCell> droppedItemCounters = new HashMap<>();
+	private final Map<String, CounterCell> slayCounters = new HashMap<>();
+
+	// Cells counted since the last settle()
+	private final Set<CounterCell> changedCells = new LinkedHashSet<>();
+
+	// Roots of dormant subtrees by the quests they reference, materialized before an event that may undo one
+	private final Map<Quest, Set<AchievementElement>> dormantQuests = new EnumMap<>(Quest.class);
+	private final Consumer<AchievementElement> materializer;
+
+	RequirementDispatcher(Consumer<AchievementElement> materializer)
+	{
+		this.materializer = materializer;
+	}
+
+	void add(AchievementElement element)
+	{
+		if (element.isDormant())
+		{
+			for (Quest quest : element.getDormant().getQuests())
+			{
+				dormantQuests.computeIfAbsent(quest, q -> new LinkedHashSet<>()).add(element);
+			}
+		}
+
+		if (element instanceof SkillRequirement)
+		{
+			skillRequirements.add((SkillRequirement) element);
+		}
+		else if (element instanceof ItemRequirement)
+		{
+			final ItemRequirement requirement = (ItemRequirement) element;
+
+			if (requirement.getTrackingOption() == ItemTrackingOption.DROPPED)
+			{
+				bind(droppedItemCounters, requirement.getName(), requirement);
+			}
+			else
+			{
+				inventoryRequirements.add(requirement);
+			}
+		}
+		else if (element instanceof SlayRequirement)
+		{
+			final SlayRequirement requirement = (SlayRequirement) element;
+			bind(slayCounters, requirement.getName(), requirement);
+		}
+		else if (element instanceof QuestRequirement)
+		{
+			questRequirements.add((QuestRequirement) element);
+		}
+		else if (element instanceof ChunkRequirement)
+		{
+			chunkRequirements.add((ChunkRequirement) element);
+		}
+	}
+
+	void remove(AchievementElement element)
+	{
+		skillRequirements.remove(element);
+		inventoryRequirements.remove(element);
+		questRequirements.remove(element);
+		chunkRequirements.remove(element);
+
+		if (element.isDormant())
+		{
+			for (Quest quest : element.getDormant().getQuests())
+			{
+				final Set<AchievementElement> roots = dormantQuests.get(quest);
+
+				if (roots != null && roots.remove(element) && roots.isEmpty())
+				{
+					dormantQuests.remove(quest);
+				}
+			}
+		}
+
+		if (element instanceof CountedRequirement)
+		{
+			final CounterCell cell = ((CountedRequirement) element).unbind();
+
+			if (cell != null && cell.getRequirements().isEmpty())
+			{
+				droppedItemCounters.remove(cell.getKey(), cell);
+				slayCounters.remove(cell.getKey(), cell);
+				changedCells.remove(cell);
+			}
+		}
+	}
+
+	// Handlers iterate over a copy since a state change may lead to the set being modified
+
+	void dispatch(StatChanged statChanged)
+	{
+		for (SkillRequirement requirement : new ArrayList<>(skillRequirements))
+		{
+			requirement.onStatChanged(statChanged);
+		}
+	}
+
+	void dispatch(ItemsValidated itemsValidated)
+	{
+		if (itemsValidated.getSource() == ItemSource.INVENTORY)
+		{
+			final Map<String, Integer> counts = new HashMap<>();
+
+			for (NamedItem item : itemsValidated.getItems())
+			{
+				counts.merge(item.getName().toLowerCase(), item.getQuantity(), Integer::sum);
+			}
+
+			for (ItemRequirement requirement : new ArrayList<>(inventoryRequirements))
+			{
+				requirement.onInventoryCounted(counts.getOrDefault(requirement.getName().toLowerCase(), 0));
+			}
+		}
+		else
+		{
+			for (NamedItem item : itemsValidated.getItems())
+			{
+				final CounterCell cell = droppedItemCounters.get(item.getName().toLowerCase());
+
+				if (cell != null)
+				{
+					cell.add(item.getQuantity());
+					changedCells.add(cell);
+				}
+			}
+		}
+	}
+
+	void dispatch(KilledNpc killedNpc)
+	{
+		if (killedNpc.getName() == null)
+		{
+			return;
+		}
+
+		final CounterCell cell = slayCounters.get(killedNpc.getName().toLowerCase());
+
+		if (cell != null)
+		{
+			cell.add(1);
+			changedCells.add(cell);
+		}
+	}
+
+	/**
+	 * Materializes the dormant subtrees with quest requirements the given client state no longer satisfies, so that a
+	 * following evaluation sees them.
+	 */
+	void wake(ClientStateSnapshot snapshot)
+	{
+		for (Quest quest : new ArrayList<>(dormantQuests.keySet()))
+		{
+			final QuestState state = snapshot.getQuestState(quest);
+
+			if (state != null && state != QuestState.FINISHED)
+			{
+				wake(quest);
+			}
+		}
+	}
+
+	void dispatch(QuestStateChanged questStateChanged)
+	{
+		if (questStateChanged.getState() != QuestState.FINISHED)
+		{
+			wake(questStateChanged.getQuest());
+		}
+
+		for (QuestRequirement requirement : new ArrayList<>(questRequirements))
+		{
+			requirement.onQuestStateChanged(questStateChanged);
+		}
+	}
+
+	void dispatch(ChunkEntered chunkEntered)
+	{
+		for (ChunkRequirement requirement : new ArrayList<>(chunkRequirements))
+		{
+			requirement.onChunkEntered(chunkEntered);
+		}
+	}
+
+	private void wake(Quest quest)
+	{
+		final Set<AchievementElement> roots = dormantQuests.get(quest);
+
+		if (roots != null)
+		{
+			// Materializing unregisters the dormant root, which modifies the set
+			for (AchievementElement root : new ArrayList<>(roots))
+			{
+				materializer.accept(root);
+			}
+		}
+	}
+
+	private static void bind(Map<String, CounterCell> counters, String name, CountedRequirement requirement)
+	{
+		final String key = name.toLowerCase();
+		requirement.bind(counters.computeIfAbsent(key, CounterCell::new));
+	}
+
+	/**
+	 * Settles the requirements still counting on every cell counted since the last call, once per batch of events.
+	 */
+	void settle()
+	{
+		if (changedCells.isEmpty())
+		{
+			return;
+		}
+
+		final List<CounterCell> cells = new ArrayList<>(changedCells);
+		changedCells.clear();
+
+		for (CounterCell cell : cells)
+		{
+			for (CountedRequirement requirement : new ArrayList<>(cell.getCounting()))
+			{
+				requirement.onCounterChanged();
+			}
+		}
+	}
+}
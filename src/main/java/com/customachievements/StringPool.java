@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import lombok.Value;
+
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deduplicates the names and keywords that imported packs repeat across many requirements. Entries are weakly
+ * held, so strings no longer referenced by any element are released.
+ */
+@Singleton
+public class StringPool
+{
+	private final Interner<String> interner = Interners.newWeakInterner();
+
+	private final AtomicLong lookups = new AtomicLong();
+	private final AtomicLong deduplicated = new AtomicLong();
+
+	public String intern(String value)
+	{
+		if (value == null)
+		{
+			return null;
+		}
+
+		final String pooled = interner.intern(value);
+		lookups.incrementAndGet();
+
+		if (pooled != value)
+		{
+			deduplicated.incrementAndGet();
+		}
+
+		return pooled;
+	}
+
+	public List<String> intern(List<String> values)
+	{
+		if (values.isEmpty())
+		{
+			return ImmutableList.of();
+		}
+
+		final ImmutableList.Builder<String> builder = ImmutableList.builder();
+
+		for (String value : values)
+		{
+			builder.add(intern(value));
+		}
+
+		return builder.build();
+	}
+
+	Stats getStats()
+	{
+		return new Stats(lookups.get(), deduplicated.get());
+	}
+
+	@Value
+	static class Stats
+	{
+		long lookups;
+		// Lookups that returned an existing instance, i.e. copies that can be collected
+		long deduplicated;
+	}
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import com.customachievements.requirements.Requirement;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Evaluates the submitted root achievements on the model thread a slice at a time, stopping once the time budget of
+ * the current tick is spent and resuming where it left off on the next one, so that other commands are never
+ * held up for long. Expanded roots are evaluated first since they are the ones visible in the panel.
+ */
+@Slf4j
+class TimeSlicedEvaluator
+{
+	// Elements evaluated between clock reads
+	private static final int CLOCK_INTERVAL = 32;
+
+	private final Predicate<AchievementElement> visible;
+
+	private final Deque<AchievementElement> visibleRoots = new ArrayDeque<>();
+	private final Deque<AchievementElement> hiddenRoots = new ArrayDeque<>();
+	private final Set<AchievementElement> queued = Collections.newSetFromMap(new IdentityHashMap<>());
+
+	// Post-order traversal of the root currently being evaluated
+	private final Deque<Frame> stack = new ArrayDeque<>();
+
+	private ClientStateSnapshot snapshot = ClientStateSnapshot.EMPTY;
+
+	private volatile int queueDepth = 0;
+	private volatile long slices = 0;
+	private volatile long lastSliceNanos = 0;
+	private volatile long averageSliceNanos = 0;
+	private volatile long maxSliceNanos = 0;
+
+	TimeSlicedEvaluator(Predicate<AchievementElement> visible)
+	{
+		this.visible = visible;
+	}
+
+	/**
+	 * Queues roots for evaluation against the given snapshot, which replaces the one used for work still pending.
+	 */
+	void submit(Collection<AchievementElement> roots, ClientStateSnapshot snapshot)
+	{
+		this.snapshot = snapshot;
+
+		for (AchievementElement root : roots)
+		{
+			if (queued.add(root))
+			{
+				if (visible.test(root))
+				{
+					visibleRoots.add(root);
+				}
+				else
+				{
+					hiddenRoots.add(root);
+				}
+			}
+		}
+
+		queueDepth = queued.size();
+		log.debug("Queued {} roots for evaluation", queueDepth);
+	}
+
+	boolean hasWork()
+	{
+		return !stack.isEmpty() || !queued.isEmpty();
+	}
+
+	/**
+	 * Evaluates until there is no work left or the budget has been spent.
+	 */
+	void runSlice(long budgetNanos)
+	{
+		final long start = System.nanoTime();
+		int evaluated = 0;
+
+		while (hasWork())
+		{
+			if (stack.isEmpty())
+			{
+				final AchievementElement root = visibleRoots.isEmpty() ? hiddenRoots.poll() : visibleRoots.poll();
+				queued.remove(root);
+				stack.push(new Frame(root, 0));
+			}
+
+			step();
+
+			if (++evaluated % CLOCK_INTERVAL == 0 && System.nanoTime() - start >= budgetNanos)
+			{
+				break;
+			}
+		}
+
+		final long elapsed = System.nanoTime() - start;
+
+		slices++;
+		lastSliceNanos = elapsed;
+		averageSliceNanos = slices == 1 ? elapsed : (averageSliceNanos * 7 + elapsed) / 8;
+		maxSliceNanos = Math.max(maxSliceNanos, elapsed);
+		queueDepth = queued.size() + (stack.isEmpty() ? 0 : 1);
+
+		if (!hasWork())
+		{
+			final EvaluationMetrics metrics = getMetrics();
+			log.debug("Evaluation finished after {} slices, last {} ns, average {} ns, longest {} ns",
+					metrics.getSlices(),
+					metrics.getLastSliceNanos(),
+					metrics.getAverageSliceNanos(),
+					metrics.getMaxSliceNanos());
+		}
+	}
+
+	EvaluationMetrics getMetrics()
+	{
+		return new EvaluationMetrics(queueDepth, slices, lastSliceNanos, averageSliceNanos, maxSliceNanos);
+	}
+
+	private void step()
+	{
+		final Frame frame = stack.peek();
+		final List<AchievementElement> children = frame.element.getChildren();
+
+		// Bounds are checked on every step as the tree may be edited between slices
+		if (frame.nextChild < children.size())
+		{
+			stack.push(new Frame(children.get(frame.nextChild++), 0));
+			return;
+		}
+
+		stack.pop();
+
+		if (frame.element instanceof Requirement)
+		{
+			((Requirement) frame.element).forceUpdate(snapshot);
+		}
+
+		frame.element.refresh();
+	}
+
+	@AllArgsConstructor
+	private static class Frame
+	{
+		private final AchievementElement element;
+		private int nextChild;
+	}
+
+	@Value
+	static class EvaluationMetrics
+	{
+		int queueDepth;
+		long slices;
+		long lastSliceNanos;
+		long averageSliceNanos;
+		long maxSliceNanos;
+	}
+}
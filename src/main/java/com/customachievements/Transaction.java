@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Batch of structural changes to the achievement tree, see {@link CustomAchievementsPlugin#transaction}.
+ * Lists are modified as operations are issued, but registration is deferred to the commit, where only elements
+ * that actually entered or left the tree are registered or unregistered.
+ */
+public class Transaction
+{
+	private final List<AchievementElement> roots;
+
+	private final Set<AchievementElement> attached = newIdentitySet();
+	private final Set<AchievementElement> detached = newIdentitySet();
+	private final Set<AchievementElement> touchedParents = newIdentitySet();
+
+	Transaction(List<AchievementElement> roots)
+	{
+		this.roots = roots;
+	}
+
+	public void add(AchievementElement element)
+	{
+		add(null, element);
+	}
+
+	public void add(AchievementElement parent, AchievementElement child)
+	{
+		if (parent == null)
+		{
+			roots.add(child);
+		}
+		else
+		{
+			parent.addChild(child);
+		}
+
+		attach(parent, child);
+	}
+
+	public void remove(AchievementElement element)
+	{
+		remove(null, element);
+	}
+
+	public void remove(AchievementElement parent, AchievementElement child)
+	{
+		if (parent == null ? roots.remove(child) : parent.removeChild(child))
+		{
+			detach(parent, child);
+		}
+	}
+
+	public void set(int index, AchievementElement element)
+	{
+		set(index, null, element);
+	}
+
+	public void set(int index, AchievementElement parent, AchievementElement child)
+	{
+		detach(parent, parent == null ? roots.set(index, child) : parent.setChild(index, child));
+		attach(parent, child);
+	}
+
+	/**
+	 * Replaces the element at the given index of the parent (or root) list, or appends it if the index is past the end.
+	 */
+	public void put(int index, AchievementElement parent, AchievementElement element)
+	{
+		if (index < childrenOf(parent).size())
+		{
+			set(index, parent, element);
+		}
+		else
+		{
+			add(parent, element);
+		}
+	}
+
+	public void move(AchievementElement parent, int from, int to)
+	{
+		final int size = childrenOf(parent).size();
+
+		if (from < size && to < size)
+		{
+			if (parent == null)
+			{
+				roots.add(to, roots.remove(from));
+			}
+			else
+			{
+				parent.moveChild(from, to);
+			}
+
+			touch(parent);
+		}
+	}
+
+	public void clear()
+	{
+		detached.addAll(roots);
+		roots.clear();
+	}
+
+	/**
+	 * Reports every element that left or entered the tree and drops the cached snapshots of every parent whose
+	 * children changed. Called once after the last operation.
+	 */
+	void commit(Consumer<AchievementElement> onRemoved, Consumer<AchievementElement> onAdded)
+	{
+		final Set<AchievementElement> rootSet = newIdentitySet();
+		rootSet.addAll(roots);
+
+		// Added subtrees go first, since they may share descendants with removed ones and must own their parent pointers
+		final Set<AchievementElement> added = flatten(attached, true);
+		final Set<AchievementElement> removed = flatten(detached, false);
+
+		for (AchievementElement element : removed)
+		{
+			if (!isAttached(element, rootSet))
+			{
+				onRemoved.accept(element);
+			}
+		}
+
+		for (AchievementElement element : added)
+		{
+			if (isAttached(element, rootSet))
+			{
+				onAdded.accept(element);
+			}
+		}
+
+		// Shared descendants may have changed while their parent pointers referred to another copy
+		for (AchievementElement element : attached)
+		{
+			element.recountTree();
+		}
+
+		for (AchievementElement parent : touchedParents)
+		{
+			parent.recount();
+			parent.invalidate();
+		}
+	}
+
+	private List<AchievementElement> childrenOf(AchievementElement parent)
+	{
+		return parent == null ? roots : parent.getChildren();
+	}
+
+	private void attach(AchievementElement parent, AchievementElement child)
+	{
+		child.setParent(parent);
+		attached.add(child);
+		touch(parent);
+	}
+
+	private void detach(AchievementElement parent, AchievementElement child)
+	{
+		child.setParent(null);
+		detached.add(child);
+		touch(parent);
+	}
+
+	private void touch(AchievementElement parent)
+	{
+		if (parent != null)
+		{
+			touchedParents.add(parent);
+		}
+	}
+
+	/**
+	 * Whether the element can be reached from the root list, following parent pointers upwards.
+	 */
+	private static boolean isAttached(AchievementElement element, Set<AchievementElement> rootSet)
+	{
+		AchievementElement root = element;
+
+		while (root.getParent() != null)
+		{
+			root = root.getParent();
+		}
+
+		return rootSet.contains(root);
+	}
+
+
+	/**
+	 * Collects the given subtrees, optionally restoring the parent pointers of their descendants along the way.
+	 */
+	private static Set<AchievementElement> flatten(Set<AchievementElement> subtrees, boolean claimChildren)
+	{
+		final Set<AchievementElement> elements = newIdentitySet();
+		final Deque<AchievementElement> stack = new ArrayDeque<>(subtrees);
+
+		while (!stack.isEmpty())
+		{
+			final AchievementElement element = stack.pop();
+
+			if (elements.add(element))
+			{
+				for (AchievementElement child : element.getChildren())
+				{
+					if (claimChildren)
+					{
+						child.setParent(element);
+					}
+
+					stack.push(child);
+				}
+			}
+		}
+
+		return elements;
+	}
+
+	private static Set<AchievementElement> newIdentitySet()
+	{
+		return Collections.newSetFromMap(new IdentityHashMap<>());
+	}
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filtered and sorted children of every node in the published snapshot, confined to the event dispatch thread.
+ * Snapshots share unchanged subtrees between versions, so an update only descends into nodes whose snapshot
+ * changed, and where the children of a node are still the same elements in the same order only the changed ones
+ * are removed and reinserted at their sorted position.
+ */
+class ViewIndex
+{
+	private static final long ROOT = 0;
+
+	private final Map<Long, Level> levels = new HashMap<>();
+
+	@Getter
+	private ViewFilter filter = ViewFilter.ALL;
+
+	@Getter
+	private ViewSort sort = ViewSort.MANUAL;
+
+	// Incremented on every update, so levels of moved subtrees are not dropped by their previous parent
+	private int generation = 0;
+
+	public void setMode(ViewFilter filter, ViewSort sort)
+	{
+		if (this.filter != filter || this.sort != sort)
+		{
+			this.filter = filter;
+			this.sort = sort;
+			levels.clear();
+		}
+	}
+
+	/**
+	 * Whether the tree is shown as is, in which case no index is kept and elements may be reordered by dragging.
+	 */
+	public boolean isManual()
+	{
+		return filter == ViewFilter.ALL && sort == ViewSort.MANUAL;
+	}
+
+	/**
+	 * Brings the index up to date with the given snapshot and returns its roots in view order.
+	 */
+	public List<ElementSnapshot> update(List<ElementSnapshot> roots)
+	{
+		if (isManual())
+		{
+			return roots;
+		}
+
+		generation++;
+		update(ROOT, roots);
+
+		return childrenOf(ROOT, roots);
+	}
+
+	/**
+	 * Returns the children of the node in view order.
+	 */
+	public List<ElementSnapshot> childrenOf(ElementSnapshot node)
+	{
+		return isManual() ? node.getChildren() : childrenOf(node.getId(), node.getChildren());
+	}
+
+	/**
+	 * Returns the index of the element among all of its siblings, including the ones filtered out of the view.
+	 */
+	public int indexOf(long parentId, long id)
+	{
+		return levels.get(parentId).indices.get(id);
+	}
+
+	private List<ElementSnapshot> childrenOf(long id, List<ElementSnapshot> children)
+	{
+		final Level level = levels.get(id);
+		return level == null ? children : level.ordered;
+	}
+
+	private void update(long id, List<ElementSnapshot> children)
+	{
+		Level level = levels.get(id);
+
+		if (children.isEmpty())
+		{
+			levels.remove(id);
+			return;
+		}
+		else if (level != null && level.children == children)
+		{
+			// The subtree was shared with the previous snapshot
+			level.generation = generation;
+			return;
+		}
+
+		final List<ElementSnapshot> changed = new ArrayList<>();
+
+		if (level == null || !sameElements(level.children, children))
+		{
+			final Map<Long, ElementSnapshot> previous = new HashMap<>();
+
+			if (level != null)
+			{
+				for (ElementSnapshot child : level.children)
+				{
+					previous.put(child.getId(), child);
+				}
+			}
+
+			level = new Level(children);
+			levels.put(id, level);
+
+			for (ElementSnapshot child : children)
+			{
+				if (previous.remove(child.getId()) != child)
+				{
+					changed.add(child);
+				}
+			}
+
+			for (ElementSnapshot removed : previous.values())
+			{
+				remove(removed);
+			}
+		}
+		else
+		{
+			for (int i = 0; i < children.size(); i++)
+			{
+				final ElementSnapshot before = level.children.get(i);
+				final ElementSnapshot after = children.get(i);
+
+				if (before != after)
+				{
+					level.reposition(before, after);
+					changed.add(after);
+				}
+			}
+
+			level.children = children;
+		}
+
+		level.generation = generation;
+
+		for (ElementSnapshot child : changed)
+		{
+			update(child.getId(), child.getChildren());
+		}
+	}
+
+	private void remove(ElementSnapshot node)
+	{
+		final Level level = levels.get(node.getId());
+
+		if (level != null && level.generation != generation)
+		{
+			levels.remove(node.getId());
+
+			for (ElementSnapshot child : level.children)
+			{
+				remove(child);
+			}
+		}
+	}
+
+	private static boolean sameElements(List<ElementSnapshot> a, List<ElementSnapshot> b)
+	{
+		if (a.size() != b.size())
+		{
+			return false;
+		}
+
+		for (int i = 0; i < a.size(); i++)
+		{
+			if (a.get(i).getId() != b.get(i).getId())
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private class Level
+	{
+		private List<ElementSnapshot> children;
+		private final Map<Long, Integer> indices = new HashMap<>();
+		private final List<ElementSnapshot> ordered = new ArrayList<>();
+		private final Comparator<ElementSnapshot> comparator;
+		private int generation;
+
+		Level(List<ElementSnapshot> children)
+		{
+			this.children = children;
+			this.comparator = sort.getComparator().thenComparingInt(snapshot -> indices.get(snapshot.getId()));
+
+			for (int i = 0; i < children.size(); i++)
+			{
+				final ElementSnapshot child = children.get(i);
+				indices.put(child.getId(), i);
+
+				if (filter.test(child))
+				{
+					ordered.add(child);
+				}
+			}
+
+			ordered.sort(comparator);
+		}
+
+		void reposition(ElementSnapshot before, ElementSnapshot after)
+		{
+			if (filter.test(before))
+			{
+				ordered.remove(Collections.binarySearch(ordered, before, comparator));
+			}
+
+			if (filter.test(after))
+			{
+				ordered.add(-Collections.binarySearch(ordered, after, comparator) - 1, after);
+			}
+		}
+	}
+}
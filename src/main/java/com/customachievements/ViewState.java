@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements;
+
+import com.google.common.base.Strings;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.config.ConfigManager;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * View-only state of the panel, keyed by element id. It is written from the event dispatch thread and persisted
+ * separately from the achievements, a few seconds after the last change, so that pure UI interactions never
+ * re-serialize the achievement tree.
+ */
+@Slf4j
+@Singleton
+public class ViewState
+{
+	private static final Gson GSON = new Gson();
+	private static final int SAVE_DELAY_MILLIS = 5000;
+
+	private final ConfigManager configManager;
+	private final Timer saveTimer;
+
+	// Elements are expanded by default, so only collapsed ones are stored. Read from the model thread as well
+	private final Set<Long> collapsed = ConcurrentHashMap.newKeySet();
+
+	@Getter
+	private int scrollPosition = 0;
+
+	@Getter
+	private ViewFilter filter = ViewFilter.ALL;
+
+	@Getter
+	private ViewSort sort = ViewSort.MANUAL;
+
+	private boolean dirty = false;
+
+	@Inject
+	ViewState(ConfigManager configManager)
+	{
+		this.configManager = configManager;
+		this.saveTimer = new Timer(SAVE_DELAY_MILLIS, e -> save());
+		this.saveTimer.setRepeats(false);
+	}
+
+	public void load()
+	{
+		collapsed.clear();
+		scrollPosition = 0;
+		filter = ViewFilter.ALL;
+		sort = ViewSort.MANUAL;
+		dirty = false;
+
+		final String json = configManager.getConfiguration(
+				CustomAchievementsConfig.CONFIG_GROUP,
+				CustomAchievementsConfig.VIEW_STATE);
+
+		if (Strings.isNullOrEmpty(json))
+		{
+			return;
+		}
+
+		try
+		{
+			final Data data = GSON.fromJson(json, Data.class);
+
+			if (data != null)
+			{
+				if (data.collapsed != null)
+				{
+					collapsed.addAll(data.collapsed);
+				}
+
+				scrollPosition = data.scrollPosition;
+
+				if (data.filter != null)
+				{
+					filter = data.filter;
+				}
+
+				if (data.sort != null)
+				{
+					sort = data.sort;
+				}
+			}
+		}
+		catch (JsonParseException e)
+		{
+			log.warn("Unable to read view state: {}", e.getMessage());
+		}
+	}
+
+	public void save()
+	{
+		saveTimer.stop();
+
+		if (!dirty)
+		{
+			return;
+		}
+
+		final Data data = new Data();
+		data.collapsed = new ArrayList<>(collapsed);
+		data.scrollPosition = scrollPosition;
+		data.filter = filter;
+		data.sort = sort;
+
+		configManager.setConfiguration(
+				CustomAchievementsConfig.CONFIG_GROUP,
+				CustomAchievementsConfig.VIEW_STATE,
+				GSON.toJson(data));
+
+		dirty = false;
+	}
+
+	public boolean isExpanded(long id)
+	{
+		return !collapsed.contains(id);
+	}
+
+	public void setExpanded(long id, boolean expanded)
+	{
+		if (expanded ? collapsed.remove(id) : collapsed.add(id))
+		{
+			changed();
+		}
+	}
+
+	/**
+	 * Drops the state of elements that no longer exist, so that it is not saved forever.
+	 */
+	public void forget(Collection<Long> ids)
+	{
+		if (collapsed.removeAll(ids))
+		{
+			changed();
+		}
+	}
+
+	public void toggleExpanded(long id)
+	{
+		setExpanded(id, !isExpanded(id));
+	}
+
+	public void setScrollPosition(int scrollPosition)
+	{
+		if (this.scrollPosition != scrollPosition)
+		{
+			this.scrollPosition = scrollPosition;
+			changed();
+		}
+	}
+
+	public void setFilter(ViewFilter filter)
+	{
+		if (this.filter != filter)
+		{
+			this.filter = filter;
+			changed();
+		}
+	}
+
+	public void setSort(ViewSort sort)
+	{
+		if (this.sort != sort)
+		{
+			this.sort = sort;
+			changed();
+		}
+	}
+
+	private void changed()
+	{
+		dirty = true;
+		saveTimer.restart();
+	}
+
+	private static class Data
+	{
+		private List<Long> collapsed;
+		private int scrollPosition;
+		private ViewFilter filter;
+		private ViewSort sort;
+	}
+}
@@ -35,4 +35,7 @@ import net.runelite.api.NPC;
 public class KilledNpc
 {
 	NPC npc;
+
+	// Captured on the client thread so that consumers on other threads need not read the NPC
+	String name;
 }
@@ -25,9 +25,9 @@
  */
 package com.customachievements.requirements;
 
+import com.customachievements.ClientStateSnapshot;
 import lombok.Getter;
 import lombok.Setter;
-import net.runelite.api.Client;
 
 import static com.customachievements.AchievementState.COMPLETE;
 import static com.customachievements.AchievementState.INCOMPLETE;
@@ -51,7 +51,7 @@ public class AbstractRequirement extends Requirement
 	}
 
 	@Override
-	public void forceUpdate(Client client) {}
+	public void forceUpdate(ClientStateSnapshot snapshot) {}
 
 	@Override
 	public void click()
@@ -67,7 +67,7 @@ public class AbstractRequirement extends Requirement
 	}
 
 	@Override
-	public Requirement deepCopy()
+	protected Requirement copyNode()
 	{
 		return new AbstractRequirement(this);
 	}
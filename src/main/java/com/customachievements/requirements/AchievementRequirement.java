@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements.requirements;
+
+import com.customachievements.AchievementState;
+import com.customachievements.ClientStateSnapshot;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Requires another element, referenced by id, to be completed. Progress is kept in step with the referenced
+ * element by the plugin's dependency graph.
+ */
+@Getter
+@Setter
+public class AchievementRequirement extends Requirement
+{
+	private long achievementId;
+
+	// Last known name of the referenced element, for display while it is not registered
+	private String name;
+
+	public AchievementRequirement(long achievementId, String name)
+	{
+		super(RequirementType.ACHIEVEMENT);
+		this.achievementId = achievementId;
+		this.name = name;
+	}
+
+	public AchievementRequirement(AchievementRequirement other)
+	{
+		super(other);
+		this.achievementId = other.achievementId;
+		this.name = other.name;
+	}
+
+	/**
+	 * Takes on the state of the referenced element, or INCOMPLETE if it does not exist or forms a cycle.
+	 */
+	public void onDependencyChanged(AchievementState state, String name)
+	{
+		if (name != null && !name.equals(this.name))
+		{
+			this.name = name;
+			invalidate();
+		}
+
+		if (getProgress() != state)
+		{
+			setProgress(state);
+			refresh();
+		}
+	}
+
+	@Override
+	public void forceUpdate(ClientStateSnapshot snapshot) {}
+
+	@Override
+	protected Requirement copyNode()
+	{
+		return new AchievementRequirement(this);
+	}
+
+	@Override
+	public String toString()
+	{
+		return name == null || name.isEmpty() ? NAME_UNKNOWN : String.format("Complete %s", name);
+	}
+}
@@ -26,13 +26,12 @@
 package com.customachievements.requirements;
 
 import com.customachievements.AchievementElement;
+import com.customachievements.ClientStateSnapshot;
+import com.customachievements.StringPool;
 import com.customachievements.events.ChunkEntered;
 import com.google.common.base.Strings;
 import lombok.Getter;
 import lombok.Setter;
-import net.runelite.api.Client;
-import net.runelite.api.GameState;
-import net.runelite.client.eventbus.Subscribe;
 
 import static com.customachievements.AchievementState.COMPLETE;
 
@@ -57,7 +56,13 @@ public class ChunkRequirement extends Requirement
 		this.nickname = other.nickname;
 	}
 
-	@Subscribe
+	@Override
+	public void intern(StringPool pool)
+	{
+		super.intern(pool);
+		nickname = pool.intern(nickname);
+	}
+
 	public void onChunkEntered(final ChunkEntered chunkEntered)
 	{
 		if (getProgress() != COMPLETE && chunkEntered.getRegionId() == regionId)
@@ -68,17 +73,16 @@ public class ChunkRequirement extends Requirement
 	}
 
 	@Override
-	public void forceUpdate(Client client)
+	public void forceUpdate(ClientStateSnapshot snapshot)
 	{
-		if (client.getGameState() == GameState.LOGGED_IN &&
-			client.getLocalPlayer().getWorldLocation().getRegionID() == regionId)
+		if (snapshot.isLoggedIn() && snapshot.getRegionId() == regionId)
 		{
 			setProgress(COMPLETE);
 		}
 	}
 
 	@Override
-	public AchievementElement deepCopy()
+	protected AchievementElement copyNode()
 	{
 		return new ChunkRequirement(this);
 	}
@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements.requirements;
+
+import com.customachievements.AchievementState;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import static com.customachievements.AchievementState.*;
+
+/**
+ * A requirement that completes once some count reaches its quantity. While registered the count may be
+ * backed by a {@link CounterCell} shared with identical requirements, in which case it is read from the cell and
+ * only settled into the count field, along with the state and weight, once the dispatcher is settled.
+ */
+@Getter
+@Setter
+public abstract class CountedRequirement extends Requirement
+{
+	private int quantity;
+
+	// Settled count, which is what is saved and weighed. Read through getCount() for the current one
+	@Getter(AccessLevel.NONE)
+	private int count;
+
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private transient CounterCell cell;
+
+	// Cell value at which this requirement's count was zero
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private transient long base;
+
+	public CountedRequirement(RequirementType type, int quantity)
+	{
+		super(type);
+		this.quantity = quantity;
+		this.count = 0;
+	}
+
+	public CountedRequirement(CountedRequirement other)
+	{
+		super(other);
+		this.quantity = other.quantity;
+		this.count = other.getCount();
+	}
+
+	public void bind(CounterCell cell)
+	{
+		this.cell = cell;
+		this.base = cell.getValue() - count;
+		cell.getRequirements().add(this);
+		updateCounting();
+	}
+
+	/**
+	 * Detaches from the shared cell, keeping the count reached so far. Returns the cell, or null if unbound.
+	 */
+	public CounterCell unbind()
+	{
+		final CounterCell old = cell;
+
+		if (old != null)
+		{
+			count = getCount();
+			old.getRequirements().remove(this);
+			old.getCounting().remove(this);
+			cell = null;
+		}
+
+		return old;
+	}
+
+	/**
+	 * Current count, which runs ahead of the settled one while the cell has unsettled changes.
+	 */
+	public int getCount()
+	{
+		if (cell != null && getProgress() != COMPLETE)
+		{
+			return (int) Math.min(cell.getValue() - base, Integer.MAX_VALUE);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Settles the count after the cell changed, updating the state and weight.
+	 */
+	public void onCounterChanged()
+	{
+		if (cell != null && getProgress() != COMPLETE)
+		{
+			count = getCount();
+			onCountChanged();
+		}
+	}
+
+	/**
+	 * Re-evaluates after the count changed, which also updates the ancestors if the state changed.
+	 */
+	protected void onCountChanged()
+	{
+		final AchievementState old = getState();
+
+		updateState();
+		refresh();
+
+		// The displayed count changed even if the state did not
+		if (getState() == old)
+		{
+			broadcastState();
+		}
+	}
+
+	@Override
+	public void setProgress(AchievementState progress)
+	{
+		super.setProgress(progress);
+		updateCounting();
+	}
+
+	// Completed requirements stop counting, so they are left out of the cell's notifications
+	private void updateCounting()
+	{
+		if (cell == null)
+		{
+			return;
+		}
+
+		if (getProgress() == COMPLETE)
+		{
+			cell.getCounting().remove(this);
+		}
+		else
+		{
+			cell.getCounting().add(this);
+		}
+	}
+
+	public void setQuantity(int quantity)
+	{
+		this.quantity = quantity;
+		updateWeight();
+	}
+
+	public void setCount(int count)
+	{
+		this.count = count;
+
+		if (cell != null)
+		{
+			base = cell.getValue() - count;
+		}
+
+		updateWeight();
+	}
+
+	@Override
+	public void reset()
+	{
+		super.reset();
+		count = 0;
+
+		if (cell != null)
+		{
+			base = cell.getValue();
+		}
+
+		updateWeight();
+	}
+
+	// Partial counts contribute partial weight
+	@Override
+	protected int computeCompletedWeight()
+	{
+		if (getProgress() == COMPLETE)
+		{
+			return WEIGHT;
+		}
+
+		return quantity <= 0 ? 0 : (int) ((long) WEIGHT * Math.min(count, quantity) / quantity);
+	}
+
+	protected void updateState()
+	{
+		if (count >= quantity)
+		{
+			setProgress(COMPLETE);
+		}
+		else if (count > 0)
+		{
+			setProgress(IN_PROGRESS);
+		}
+		else
+		{
+			setProgress(INCOMPLETE);
+		}
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2020, Alec Hogerland <https://github.com/ahogerland>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.customachievements.requirements;
+
+import com.customachievements.AchievementState;
+import com.customachievements.ClientStateSnapshot;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+
+import static com.customachievements.AchievementState.*;
+
+/**
+ * Combines its sub-requirements with an operator. Evaluation reads the per-node child state counters, so it is
+ * O(1) regardless of the number of sub-requirements.
+ */
+@Getter
+@Setter
+public class GroupRequirement extends Requirement
+{
+	private GroupOperator operator;
+	private int threshold;
+
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private transient int contributedWeight;
+
+	public GroupRequirement(GroupOperator operator, int threshold)
+	{
+		super(RequirementType.GROUP);
+		this.operator = operator;
+		this.threshold = threshold;
+	}
+
+	public GroupRequirement(GroupRequirement other)
+	{
+		super(other);
+		this.operator = other.operator;
+		this.threshold = other.threshold;
+	}
+
+	public void setOperator(GroupOperator operator)
+	{
+		this.operator = operator;
+		updateWeight();
+	}
+
+	public void setThreshold(int threshold)
+	{
+		this.threshold = threshold;
+		updateWeight();
+	}
+
+	@Override
+	public void forceUpdate(ClientStateSnapshot snapshot) {}
+
+	// Weighed by its sub-requirements alone
+	@Override
+	protected int getOwnWeight()
+	{
+		return 0;
+	}
+
+	@Override
+	protected int computeCompletedWeight()
+	{
+		return 0;
+	}
+
+	@Override
+	protected int getContributedWeight()
+	{
+		return contributedWeight;
+	}
+
+	// Only the required number of sub-requirements need to be done, so that many count as the whole group
+	@Override
+	protected void updateContributedWeight()
+	{
+		final int total = getTotalWeight();
+
+		if (total == 0 || getProgress() == COMPLETE)
+		{
+			contributedWeight = total;
+			return;
+		}
+
+		final int required = getRequired();
+		final int size = getChildren().size();
+
+		contributedWeight = required <= 0 ? 0 : (int) Math.min(total, (long) getCompletedWeight() * size / required);
+	}
+
+	@Override
+	public void refresh()
+	{
+		final AchievementState progress;
+
+		if (getCompleteChildren() >= getRequired())
+		{
+			progress = COMPLETE;
+		}
+		else if (getStartedChildren() > 0)
+		{
+			progress = IN_PROGRESS;
+		}
+		else
+		{
+			progress = INCOMPLETE;
+		}
+
+		setProgress(progress);
+
+		if (isForceComplete())
+		{
+			setState(COMPLETE);
+
+			if (progress == COMPLETE)
+			{
+				setForceComplete(false);
+			}
+		}
+		else
+		{
+			setState(progress);
+		}
+	}
+
+	@Override
+	protected Requirement copyNode()
+	{
+		return new GroupRequirement(this);
+	}
+
+	@Override
+	public String toString()
+	{
+		final int required = getRequired();
+		final int done = getState() == COMPLETE ? required : Math.min(getCompleteChildren(), required);
+
+		switch (operator)
+		{
+			case ANY:
+				return String.format("Any of %d (%d/%d)", getChildren().size(), done, required);
+			case AT_LEAST:
+				return String.format("%d of %d (%d/%d)", threshold, getChildren().size(), done, required);
+			case ALL:
+			default:
+				return String.format("All of %d (%d/%d)", getChildren().size(), done, required);
+		}
+	}
+
+	private int getRequired()
+	{
+		switch (operator)
+		{
+			case ANY:
+				return 1;
+			case AT_LEAST:
+				return threshold;
+			case ALL:
+			default:
+				return getChildren().size();
+		}
+	}
+}
@@ -25,33 +25,24 @@
  */
 package com.customachievements.requirements;
 
-import com.customachievements.NamedItem;
-import com.customachievements.ItemSource;
-import com.customachievements.events.ItemsValidated;
+import com.customachievements.ClientStateSnapshot;
+import com.customachievements.StringPool;
 import lombok.Getter;
 import lombok.Setter;
-import net.runelite.api.Client;
-import net.runelite.client.eventbus.Subscribe;
-
-import java.util.Collection;
 
 import static com.customachievements.AchievementState.*;
 
 @Getter
 @Setter
-public class ItemRequirement extends Requirement
+public class ItemRequirement extends CountedRequirement
 {
 	private String name;
-	private int quantity;
-	private int count;
 	private ItemTrackingOption trackingOption;
 
 	public ItemRequirement(String name, int quantity)
 	{
-		super(RequirementType.ITEM);
+		super(RequirementType.ITEM, quantity);
 		this.name = name;
-		this.quantity = quantity;
-		this.count = 0;
 		this.trackingOption = ItemTrackingOption.INVENTORY;
 	}
 
@@ -59,90 +50,65 @@ public class ItemRequirement extends Requirement
 	{
 		super(other);
 		this.name = other.name;
-		this.quantity = other.quantity;
-		this.count = other.count;
 		this.trackingOption = other.trackingOption;
 	}
 
-	@Subscribe
-	public void onItemsValidated(final ItemsValidated itemsValidated)
-	{
-		if (getProgress() != COMPLETE)
-		{
-			if (trackingOption == ItemTrackingOption.DROPPED &&
-				itemsValidated.getSource() != ItemSource.INVENTORY)
-			{
-				countItems(itemsValidated.getItems());
-			}
-			else if (trackingOption == ItemTrackingOption.INVENTORY &&
-					itemsValidated.getSource() == ItemSource.INVENTORY)
-			{
-				count = 0;
-				countItems(itemsValidated.getItems());
-			}
-		}
-	}
-
 	@Override
-	public void forceUpdate(Client client)
+	public void intern(StringPool pool)
 	{
-		updateState();
+		super.intern(pool);
+		name = pool.intern(name);
 	}
 
-	@Override
-	public Requirement deepCopy()
+	/**
+	 * Takes the number of matching items in a validated inventory. Dropped items are counted through a shared cell instead.
+	 */
+	public void onInventoryCounted(int count)
 	{
-		return new ItemRequirement(this);
+		if (getProgress() != COMPLETE && trackingOption == ItemTrackingOption.INVENTORY)
+		{
+			setCount(count);
+			onCountChanged();
+		}
 	}
 
 	@Override
-	public void reset()
+	public void forceUpdate(ClientStateSnapshot snapshot)
 	{
-		super.reset();
-		count = 0;
-	}
+		final int previousCount = getCount();
 
-	@Override
-	public String toString()
-	{
-		if (name.isEmpty())
+		if (getProgress() != COMPLETE &&
+			trackingOption == ItemTrackingOption.INVENTORY &&
+			snapshot.isLoggedIn())
 		{
-			return NAME_UNKNOWN;
+			setCount(snapshot.getItemCount(name));
 		}
-		else
+
+		updateState();
+
+		if (getCount() != previousCount)
 		{
-			final int done = getState() == COMPLETE ? quantity : Math.min(count, quantity);
-			return String.format("%s (%d/%d)", name, done, quantity);
+			broadcastState();
 		}
 	}
 
-	private void countItems(Collection<NamedItem> items)
+	@Override
+	protected Requirement copyNode()
 	{
-		for (NamedItem item : items)
-		{
-			if (item.getName().equalsIgnoreCase(name))
-			{
-				count += item.getQuantity();
-			}
-		}
-
-		updateState();
-		broadcastState();
+		return new ItemRequirement(this);
 	}
 
-	private void updateState()
+	@Override
+	public String toString()
 	{
-		if (count >= quantity)
-		{
-			setProgress(COMPLETE);
-		}
-		else if (count > 0)
+		if (name.isEmpty())
 		{
-			setProgress(IN_PROGRESS);
+			return NAME_UNKNOWN;
 		}
 		else
 		{
-			setProgress(INCOMPLETE);
+			final int done = getState() == COMPLETE ? getQuantity() : Math.min(getCount(), getQuantity());
+			return String.format("%s (%d/%d)", name, done, getQuantity());
 		}
 	}
 }
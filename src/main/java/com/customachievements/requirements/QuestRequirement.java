@@ -25,13 +25,12 @@
  */
 package com.customachievements.requirements;
 
+import com.customachievements.ClientStateSnapshot;
 import com.customachievements.events.QuestStateChanged;
 import lombok.Getter;
 import lombok.Setter;
-import net.runelite.api.Client;
 import net.runelite.api.Quest;
 import net.runelite.api.QuestState;
-import net.runelite.client.eventbus.Subscribe;
 
 import static com.customachievements.AchievementState.*;
 
@@ -53,7 +52,6 @@ public class QuestRequirement extends Requirement
 		this.quest = other.quest;
 	}
 
-	@Subscribe
 	public void onQuestStateChanged(final QuestStateChanged questStateChanged)
 	{
 		if (questStateChanged.getQuest() == quest)
@@ -64,13 +62,18 @@ public class QuestRequirement extends Requirement
 	}
 
 	@Override
-	public void forceUpdate(Client client)
+	public void forceUpdate(ClientStateSnapshot snapshot)
 	{
-		updateState(quest.getState(client));
+		final QuestState state = snapshot.getQuestState(quest);
+
+		if (state != null)
+		{
+			updateState(state);
+		}
 	}
 
 	@Override
-	public Requirement deepCopy()
+	protected Requirement copyNode()
 	{
 		return new QuestRequirement(this);
 	}
@@ -28,56 +28,89 @@ package com.customachievements.requirements;
 import java.util.Set;
 
 import com.customachievements.AchievementState;
+import com.customachievements.ClientStateSnapshot;
 import com.customachievements.CustomAchievementsConfig;
 import com.customachievements.AchievementElement;
 import com.google.common.collect.ImmutableSet;
-import lombok.Getter;
-import lombok.Setter;
-import net.runelite.api.Client;
 import net.runelite.client.chat.ChatColorType;
 import net.runelite.client.chat.ChatMessageBuilder;
 
 import static com.customachievements.AchievementState.*;
 
-@Getter
-@Setter
 public abstract class Requirement extends AchievementElement
 {
 	protected static final Set<Character> VOWELS = ImmutableSet.of('a', 'e', 'i', 'o', 'u');
 	protected static final String NAME_UNKNOWN = "???";
 
-	private RequirementType type;
-	private AchievementState progress;
+	private static final AchievementState[] STATES = AchievementState.values();
+	private static final RequirementType[] TYPES = RequirementType.values();
+
+	// Packed into the element flags after the element's own bits
+	private static final int PROGRESS_SHIFT = SUBCLASS_SHIFT;
+	private static final int PROGRESS_WIDTH = 2;
+	private static final int TYPE_SHIFT = PROGRESS_SHIFT + PROGRESS_WIDTH;
+	private static final int TYPE_WIDTH = 4;
 
 	public Requirement(RequirementType type)
 	{
 		super();
-		this.type = type;
-		this.progress = INCOMPLETE;
+		setType(type);
+		setProgress(INCOMPLETE);
 	}
 
 	public Requirement(Requirement other)
 	{
 		super(other);
-		this.type = other.type;
-		this.progress = other.progress;
 	}
 
-	public abstract void forceUpdate(Client client);
-	public abstract AchievementElement deepCopy();
+	public RequirementType getType()
+	{
+		return TYPES[getBits(TYPE_SHIFT, TYPE_WIDTH)];
+	}
+
+	public void setType(RequirementType type)
+	{
+		setBits(TYPE_SHIFT, TYPE_WIDTH, type.ordinal());
+	}
+
+	public AchievementState getProgress()
+	{
+		return STATES[getBits(PROGRESS_SHIFT, PROGRESS_WIDTH)];
+	}
+
+	public void setProgress(AchievementState progress)
+	{
+		setBits(PROGRESS_SHIFT, PROGRESS_WIDTH, progress.ordinal());
+		updateWeight();
+	}
+
+	@Override
+	protected int getOwnWeight()
+	{
+		return WEIGHT;
+	}
+
+	@Override
+	protected int computeCompletedWeight()
+	{
+		return getProgress() == COMPLETE ? WEIGHT : 0;
+	}
+
+	public abstract void forceUpdate(ClientStateSnapshot snapshot);
 	public abstract String toString();
 
 	@Override
 	public void reset()
 	{
 		super.reset();
-		progress = INCOMPLETE;
+		setProgress(INCOMPLETE);
 	}
 
 	@Override
 	public void refresh()
 	{
 		AchievementState childrenState = getChildrenState();
+		AchievementState progress = getProgress();
 
 		if (isForceComplete())
 		{
@@ -38,7 +38,9 @@ public enum RequirementType
 	ITEM("Item", "Collect an item. (Requires LootTracker)"),
 	SLAY("Slay", "Slay a monster."),
 	QUEST("Quest", "Require quest completion."),
-	CHUNK("Chunk", "Require chunk to be unlocked. (triggered by entering the chunk)");
+	CHUNK("Chunk", "Require chunk to be unlocked. (triggered by entering the chunk)"),
+	GROUP("Group", "Require all, any, or a number of its sub-requirements."),
+	ACHIEVEMENT("Achievement", "Require another achievement to be completed.");
 
 	private final String name;
 	private final String description;
@@ -25,12 +25,11 @@
  */
 package com.customachievements.requirements;
 
+import com.customachievements.ClientStateSnapshot;
 import lombok.Getter;
 import lombok.Setter;
-import net.runelite.api.Client;
 import net.runelite.api.Skill;
 import net.runelite.api.events.StatChanged;
-import net.runelite.client.eventbus.Subscribe;
 
 import static com.customachievements.AchievementState.COMPLETE;
 
@@ -58,7 +57,6 @@ public class SkillRequirement extends Requirement
 		this.target = other.target;
 	}
 
-	@Subscribe
 	public void onStatChanged(final StatChanged statChanged)
 	{
 		if (getProgress() != COMPLETE && skill.equals(statChanged.getSkill()))
@@ -73,17 +71,22 @@ public class SkillRequirement extends Requirement
 	}
 
 	@Override
-	public void forceUpdate(Client client)
+	public void forceUpdate(ClientStateSnapshot snapshot)
 	{
-		if ((targetType == SkillTargetType.LEVEL && client.getRealSkillLevel(skill) >= target) ||
-			(targetType == SkillTargetType.XP && client.getSkillExperience(skill) >= target))
+		if (!snapshot.isLoggedIn())
+		{
+			return;
+		}
+
+		if ((targetType == SkillTargetType.LEVEL && snapshot.getRealSkillLevel(skill) >= target) ||
+			(targetType == SkillTargetType.XP && snapshot.getSkillExperience(skill) >= target))
 		{
 			setProgress(COMPLETE);
 		}
 	}
 
 	@Override
-	public Requirement deepCopy()
+	protected Requirement copyNode()
 	{
 		return new SkillRequirement(this);
 	}
@@ -25,31 +25,25 @@
  */
 package com.customachievements.requirements;
 
-import com.customachievements.events.KilledNpc;
+import com.customachievements.ClientStateSnapshot;
+import com.customachievements.StringPool;
 import lombok.Getter;
 import lombok.Setter;
-import net.runelite.api.Client;
-import net.runelite.api.NPC;
-import net.runelite.client.eventbus.Subscribe;
 
 import static com.customachievements.AchievementState.*;
 
 @Getter
 @Setter
-public class SlayRequirement extends Requirement
+public class SlayRequirement extends CountedRequirement
 {
 	private String name;
 	private boolean properNoun;
-	private int quantity;
-	private int count;
 
 	public SlayRequirement(String name, boolean properNoun, int quantity)
 	{
-		super(RequirementType.SLAY);
+		super(RequirementType.SLAY, quantity);
 		this.name = name;
 		this.properNoun = properNoun;
-		this.quantity = quantity;
-		this.count = 0;
 	}
 
 	public SlayRequirement(SlayRequirement other)
@@ -57,42 +51,27 @@ public class SlayRequirement extends Requirement
 		super(other);
 		this.name = other.name;
 		this.properNoun = other.properNoun;
-		this.quantity = other.quantity;
-		this.count = other.count;
 	}
 
-	@Subscribe
-	public void onKilledNpc(final KilledNpc killedNpc)
+	@Override
+	public void intern(StringPool pool)
 	{
-		final NPC npc = killedNpc.getNpc();
-
-		if (getProgress() != COMPLETE && name.equalsIgnoreCase(npc.getName()))
-		{
-			count++;
-			updateState();
-			broadcastState();
-		}
+		super.intern(pool);
+		name = pool.intern(name);
 	}
 
 	@Override
-	public void forceUpdate(Client client)
+	public void forceUpdate(ClientStateSnapshot snapshot)
 	{
 		updateState();
 	}
 
 	@Override
-	public Requirement deepCopy()
+	protected Requirement copyNode()
 	{
 		return new SlayRequirement(this);
 	}
 
-	@Override
-	public void reset()
-	{
-		super.reset();
-		count = 0;
-	}
-
 	@Override
 	public String toString()
 	{
@@ -103,25 +82,9 @@ public class SlayRequirement extends Requirement
 		else
 		{
 			final String article = VOWELS.contains(Character.toLowerCase(name.charAt(0))) ? "an " : "a ";
-			final int done = getState() == COMPLETE ? quantity : Math.min(count, quantity);
-
-			return String.format("Defeat %s%s (%d/%d)", !isProperNoun() ? article : "", name, done, quantity);
-		}
-	}
+			final int done = getState() == COMPLETE ? getQuantity() : Math.min(getCount(), getQuantity());
 
-	private void updateState()
-	{
-		if (count >= quantity)
-		{
-			setProgress(COMPLETE);
-		}
-		else if (count > 0)
-		{
-			setProgress(IN_PROGRESS);
-		}
-		else
-		{
-			setProgress(INCOMPLETE);
+			return String.format("Defeat %s%s (%d/%d)", !isProperNoun() ? article : "", name, done, getQuantity());
 		}
 	}
 }
@@ -0,0 +1,109 @@
+package com.customachievements;
+
+import com.customachievements.requirements.AbstractRequirement;
+import com.customachievements.requirements.Requirement;
+import com.customachievements.requirements.RequirementType;
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AchievementElementLayoutTest
+{
+	@Test
+	public void packedStateSurvivesRoundTrip()
+	{
+		final Achievement root = new Achievement("Root");
+		final AbstractRequirement requirement = new AbstractRequirement("Requirement");
+		requirement.setProgress(AchievementState.COMPLETE);
+		requirement.refresh();
+		root.addChild(requirement);
+		root.addChild(new AbstractRequirement("Other"));
+		root.setForceComplete(true);
+		root.refresh();
+
+		final CustomAchievementsSerializer serializer = new CustomAchievementsSerializer();
+		final List<AchievementElement> loaded = serializer.fromJson(serializer.toJson(Collections.singletonList(root)));
+
+		assertEquals(1, loaded.size());
+
+		final AchievementElement loadedRoot = loaded.get(0);
+		assertEquals(AchievementState.COMPLETE, loadedRoot.getState());
+		assertTrue(loadedRoot.isForceComplete());
+
+		final Requirement loadedRequirement = (Requirement) loadedRoot.getChildren().get(0);
+		assertEquals(RequirementType.ABSTRACT, loadedRequirement.getType());
+		assertEquals(AchievementState.COMPLETE, loadedRequirement.getProgress());
+		assertEquals(AchievementState.COMPLETE, loadedRequirement.getState());
+
+		final Requirement other = (Requirement) loadedRoot.getChildren().get(1);
+		assertEquals(AchievementState.INCOMPLETE, other.getProgress());
+	}
+
+	@Test
+	public void packedFieldsAreIndependent()
+	{
+		final AbstractRequirement requirement = new AbstractRequirement("Requirement");
+
+		requirement.setForceComplete(true);
+		requirement.setProgress(AchievementState.IN_PROGRESS);
+		requirement.setType(RequirementType.GROUP);
+		requirement.setState(AchievementState.COMPLETE);
+
+		assertTrue(requirement.isForceComplete());
+		assertEquals(AchievementState.IN_PROGRESS, requirement.getProgress());
+		assertEquals(RequirementType.GROUP, requirement.getType());
+		assertEquals(AchievementState.COMPLETE, requirement.getState());
+	}
+
+	@Test
+	public void emptyListsAreShared()
+	{
+		final AbstractRequirement first = new AbstractRequirement("First");
+		final AbstractRequirement second = new AbstractRequirement("Second");
+
+		assertSame(first.getChildren(), second.getChildren());
+		assertSame(first.getKeywords(), second.getKeywords());
+	}
+
+	@Test
+	public void stateIsPackedIntoFlags()
+	{
+		assertNoFieldsOfType(AchievementElement.class, boolean.class, AchievementState.class);
+		assertEquals("Requirement fields", 0, instanceFields(Requirement.class).size());
+	}
+
+	private static void assertNoFieldsOfType(Class<?> type, Class<?>... packed)
+	{
+		for (Field field : instanceFields(type))
+		{
+			for (Class<?> packedType : packed)
+			{
+				assertNotEquals(field.getName() + " should be packed", packedType, field.getType());
+			}
+		}
+	}
+
+	private static List<Field> instanceFields(Class<?> type)
+	{
+		final List<Field> fields = new ArrayList<>();
+
+		for (Field field : type.getDeclaredFields())
+		{
+			if (!Modifier.isStatic(field.getModifiers()))
+			{
+				fields.add(field);
+			}
+		}
+
+		return fields;
+	}
+}